@@ -9,6 +9,8 @@ import java.lang.annotation.Target;
  * Author: andrewgrosner
  * Description: Marks a class as being a TypeConverter. A type converter will turn a non-model, non-SQLiteTyped class into
  * a valid database type.
+ * One converter instance is kept per thread by the generated read and write methods. Set stateless to true if the
+ * converter holds no state (or only thread-safe state) to share a single instance between all the threads instead.
  */
 @Retention(RetentionPolicy.SOURCE)
 @Target(ElementType.TYPE)
@@ -16,4 +18,6 @@ public @interface TypeConverter {
     Class<?> dbClass();
 
     Class<?> modelClass();
+
+    boolean stateless() default false;
 }
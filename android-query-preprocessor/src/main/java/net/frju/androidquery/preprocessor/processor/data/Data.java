@@ -1,6 +1,7 @@
 package net.frju.androidquery.preprocessor.processor.data;
 
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class Data {
@@ -35,4 +36,23 @@ public class Data {
 
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * (Used in Q.java freemarker template)
+     * @return the converters needed by at least one column of the tables
+     */
+    public List<TypeConverter> getUsedConverters() {
+        List<TypeConverter> converters = new ArrayList<>();
+
+        for (Table table : mTables) {
+            for (Column column : table.getColumns()) {
+                TypeConverter converter = getConverterFromClass(column.getType());
+                if (converter != null && !converters.contains(converter)) {
+                    converters.add(converter);
+                }
+            }
+        }
+
+        return converters;
+    }
+}
@@ -8,6 +8,10 @@ public class TypeConverter {
 
     private String mModelClassName;
 
+    private boolean mIsStateless;
+
+    private String mInstanceName;
+
     public String getName() {
         return mName;
     }
@@ -31,4 +35,24 @@ public class TypeConverter {
     public void setModelClassName(String modelClassName) {
         mModelClassName = modelClassName;
     }
+
+    public boolean isStateless() {
+        return mIsStateless;
+    }
+
+    public void setIsStateless(boolean isStateless) {
+        mIsStateless = isStateless;
+    }
+
+    /**
+     * (Used in Q.java freemarker template)
+     * @return the name of the Q static field holding the shared converter instance
+     */
+    public String getInstanceName() {
+        return mInstanceName;
+    }
+
+    public void setInstanceName(String instanceName) {
+        mInstanceName = instanceName;
+    }
 }
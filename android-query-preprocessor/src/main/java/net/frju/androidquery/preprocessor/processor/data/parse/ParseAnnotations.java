@@ -5,6 +5,7 @@ import net.frju.androidquery.preprocessor.processor.data.Table;
 import net.frju.androidquery.preprocessor.processor.data.TypeConverter;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -38,36 +39,42 @@ public class ParseAnnotations {
         defaultConverter.setName("net.frju.androidquery.converter.CalendarConverter");
         defaultConverter.setDbClassName("java.lang.Long");
         defaultConverter.setModelClassName("java.util.Calendar");
+        defaultConverter.setIsStateless(true);
         converters.add(defaultConverter);
 
         defaultConverter = new TypeConverter();
         defaultConverter.setName("net.frju.androidquery.converter.DateConverter");
         defaultConverter.setDbClassName("java.lang.Long");
         defaultConverter.setModelClassName("java.util.Date");
+        defaultConverter.setIsStateless(true);
         converters.add(defaultConverter);
 
         defaultConverter = new TypeConverter();
         defaultConverter.setName("net.frju.androidquery.converter.JSONObjectConverter");
         defaultConverter.setDbClassName("java.lang.String");
         defaultConverter.setModelClassName("org.json.JSONObject");
+        defaultConverter.setIsStateless(true);
         converters.add(defaultConverter);
 
         defaultConverter = new TypeConverter();
         defaultConverter.setName("net.frju.androidquery.converter.SqlDateConverter");
         defaultConverter.setDbClassName("java.lang.Long");
         defaultConverter.setModelClassName("java.sql.Date");
+        defaultConverter.setIsStateless(true);
         converters.add(defaultConverter);
 
         defaultConverter = new TypeConverter();
         defaultConverter.setName("net.frju.androidquery.converter.UriConverter");
         defaultConverter.setDbClassName("java.lang.String");
         defaultConverter.setModelClassName("android.net.Uri");
+        defaultConverter.setIsStateless(true);
         converters.add(defaultConverter);
 
         defaultConverter = new TypeConverter();
         defaultConverter.setName("net.frju.androidquery.converter.UUIDConverter");
         defaultConverter.setDbClassName("java.lang.String");
         defaultConverter.setModelClassName("java.util.UUID");
+        defaultConverter.setIsStateless(true);
         converters.add(defaultConverter);
 
         for (Element element : elements) {
@@ -76,6 +83,25 @@ public class ParseAnnotations {
             }
         }
 
+        assembleConverterInstanceNames(converters);
+
         return converters;
     }
+
+    private static void assembleConverterInstanceNames(List<TypeConverter> converters) {
+        Set<String> instanceNames = new HashSet<>();
+
+        for (TypeConverter converter : converters) {
+            String[] packageParts = converter.getName().split("\\.");
+            String instanceName = "s" + packageParts[packageParts.length - 1] + "Instance";
+
+            // two converters can have the same simple name in different packages
+            for (int i = 2; instanceNames.contains(instanceName); i++) {
+                instanceName = "s" + packageParts[packageParts.length - 1] + "Instance" + i;
+            }
+
+            instanceNames.add(instanceName);
+            converter.setInstanceName(instanceName);
+        }
+    }
 }
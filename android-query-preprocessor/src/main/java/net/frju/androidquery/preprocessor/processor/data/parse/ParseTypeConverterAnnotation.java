@@ -6,6 +6,7 @@ import net.frju.androidquery.preprocessor.processor.data.TypeConverter;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.PackageElement;
+import javax.lang.model.type.MirroredTypeException;
 
 class ParseTypeConverterAnnotation {
 
@@ -14,6 +15,7 @@ class ParseTypeConverterAnnotation {
         converter.setName(assemblePackage(element) + "." + assembleName(element));
         converter.setDbClassName(assembleDbClassName(element));
         converter.setModelClassName(assembleModelClassName(element));
+        converter.setIsStateless(assembleIsStateless(element));
 
         return converter;
     }
@@ -25,12 +27,25 @@ class ParseTypeConverterAnnotation {
 
     private static String assembleDbClassName(Element element) {
         net.frju.androidquery.annotation.TypeConverter tableAnnotation = element.getAnnotation(net.frju.androidquery.annotation.TypeConverter.class);
-        return tableAnnotation.dbClass().getName();
+        try {
+            return tableAnnotation.dbClass().getName();
+        } catch (MirroredTypeException mte) {
+            return mte.getTypeMirror().toString();
+        }
     }
 
     private static String assembleModelClassName(Element element) {
         net.frju.androidquery.annotation.TypeConverter tableAnnotation = element.getAnnotation(net.frju.androidquery.annotation.TypeConverter.class);
-        return tableAnnotation.modelClass().getName();
+        try {
+            return tableAnnotation.modelClass().getName();
+        } catch (MirroredTypeException mte) {
+            return mte.getTypeMirror().toString();
+        }
+    }
+
+    private static boolean assembleIsStateless(Element element) {
+        net.frju.androidquery.annotation.TypeConverter tableAnnotation = element.getAnnotation(net.frju.androidquery.annotation.TypeConverter.class);
+        return tableAnnotation.stateless();
     }
 
     private static String assemblePackage(Element element) {
@@ -7,7 +7,9 @@ import net.frju.androidquery.preprocessor.processor.freemarker.method.GetColumns
 import net.frju.androidquery.preprocessor.processor.freemarker.method.GetContentValueMethod;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.GetCursorGetterMethod;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.GetPrimaryKeyValueMethod;
+import net.frju.androidquery.preprocessor.processor.freemarker.method.GetStatementBinderMethod;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.IsPrimaryKeyAutoIncrementMethod;
+import net.frju.androidquery.preprocessor.processor.freemarker.method.JoinColumnNamesMethod;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.JoinReferencesMethod;
 import net.frju.androidquery.preprocessor.processor.freemarker.method.JoinSettersMethod;
 
@@ -18,21 +20,25 @@ public class DataModel {
 
     private static final String PACKAGE_NAME = "package_name";
     private static final String TABLES = "tables";
+    private static final String CONVERTERS = "converters";
 
     public static Map<String, Object> create(String packageName, Data data) {
         Map<String, Object> map = new HashMap<>();
 
         map.put(PACKAGE_NAME, packageName);
         map.put(TABLES, data.getTables());
+        map.put(CONVERTERS, data.getUsedConverters());
         map.putAll(GetCursorGetterMethod.getMethodMap(data));
         map.putAll(GetContentValueMethod.getMethodMap(data));
         map.putAll(GetPrimaryKeyValueMethod.getMethodMap(data));
+        map.putAll(GetStatementBinderMethod.getMethodMap(data));
         map.putAll(IsPrimaryKeyAutoIncrementMethod.getMethodMap());
         map.putAll(AssembleCreateTableMethod.getMethodMap(data));
         map.putAll(GetColumnsSqlArrayMethod.getMethodMap(data));
         map.putAll(FormatConstantMethod.getMethodMap());
         map.putAll(JoinSettersMethod.getMethodMap(data));
         map.putAll(JoinReferencesMethod.getMethodMap());
+        map.putAll(JoinColumnNamesMethod.getMethodMap());
 
         return map;
     }
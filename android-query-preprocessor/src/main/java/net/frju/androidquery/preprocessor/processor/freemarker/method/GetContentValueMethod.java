@@ -3,6 +3,7 @@ package net.frju.androidquery.preprocessor.processor.freemarker.method;
 import net.frju.androidquery.preprocessor.processor.data.Column;
 import net.frju.androidquery.preprocessor.processor.data.Data;
 import net.frju.androidquery.preprocessor.processor.data.TypeConverter;
+import net.frju.androidquery.preprocessor.processor.utils.StringUtils;
 
 import java.util.HashMap;
 import java.util.List;
@@ -32,7 +33,7 @@ public class GetContentValueMethod implements TemplateMethodModelEx {
     private String assembleContentValue(String varName, Column column) {
         TypeConverter converter = mData.getConverterFromClass(column.getType());
         if (converter != null) {
-            return "new " + converter.getName() + "().convertToDb(" + varName + "." + column.getName() + ")";
+            return StringUtils.assembleConverterInstance(converter) + ".convertToDb(" + varName + "." + column.getName() + ")";
         }
 
         return varName + "." + column.getName();
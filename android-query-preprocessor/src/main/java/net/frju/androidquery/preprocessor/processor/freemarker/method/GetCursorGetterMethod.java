@@ -30,11 +30,16 @@ public class GetCursorGetterMethod implements TemplateMethodModelEx {
     @Override
     public Object exec(List arguments) throws TemplateModelException {
         Object value = arguments.get(0);
+        Object indexValue = arguments.get(1);
 
         String typeValue = value instanceof SimpleScalar ?
                 value.toString() :
                 String.valueOf(value);
 
-        return StringUtils.assembleTypeGetter(mData, typeValue);
+        String index = indexValue instanceof SimpleScalar ?
+                indexValue.toString() :
+                String.valueOf(indexValue);
+
+        return StringUtils.assembleTypeGetter(mData, typeValue, index);
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import net.frju.androidquery.preprocessor.processor.data.Column;
 import net.frju.androidquery.preprocessor.processor.data.Data;
 import net.frju.androidquery.preprocessor.processor.data.Table;
 import net.frju.androidquery.preprocessor.processor.data.TypeConverter;
+import net.frju.androidquery.preprocessor.processor.utils.StringUtils;
 
 import java.util.HashMap;
 import java.util.List;
@@ -35,7 +36,7 @@ public class GetPrimaryKeyValueMethod implements TemplateMethodModelEx {
             if (column.hasPrimaryKey()) {
                 TypeConverter converter = mData.getConverterFromClass(column.getType());
                 if (converter != null) {
-                    return "new " + converter.getName() + "().convertToDb(" + varName + "." + column.getName() + ")";
+                    return StringUtils.assembleConverterInstance(converter) + ".convertToDb(" + varName + "." + column.getName() + ")";
                 }
 
                 String result = varName + "." + column.getName();
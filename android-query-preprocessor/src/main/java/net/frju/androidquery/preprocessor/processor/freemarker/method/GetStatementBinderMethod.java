@@ -0,0 +1,54 @@
+package net.frju.androidquery.preprocessor.processor.freemarker.method;
+
+import net.frju.androidquery.preprocessor.processor.data.Column;
+import net.frju.androidquery.preprocessor.processor.data.Data;
+import net.frju.androidquery.preprocessor.processor.utils.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.ext.beans.StringModel;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModelException;
+
+public class GetStatementBinderMethod implements TemplateMethodModelEx {
+
+    private static final String GET_STATEMENT_BINDER = "getStatementBinder";
+
+    private final Data mData;
+
+    public static Map<String, Object> getMethodMap(Data data) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(GET_STATEMENT_BINDER, new GetStatementBinderMethod(data));
+        return map;
+    }
+
+    private GetStatementBinderMethod(Data data) {
+        mData = data;
+    }
+
+    @Override
+    public Object exec(List arguments) throws TemplateModelException {
+        Object var = arguments.get(0);
+        String varName = var instanceof SimpleScalar ?
+                var.toString() :
+                String.valueOf(var);
+
+        Object columnValue = arguments.get(1);
+
+        Column column;
+        if (columnValue instanceof StringModel) {
+            StringModel stringModel = (StringModel) columnValue;
+            column = (Column) stringModel.getAdaptedObject(Column.class);
+        } else {
+            throw new IllegalStateException("The getStatementBinder argument must be type of " +
+                    "net.frju.androidquery.preprocessor.processor.data.Column");
+        }
+
+        String index = String.valueOf(arguments.get(2));
+
+        return StringUtils.assembleStatementBinder(mData, varName, column, index);
+    }
+}
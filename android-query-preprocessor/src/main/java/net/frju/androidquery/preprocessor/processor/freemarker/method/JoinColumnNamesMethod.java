@@ -0,0 +1,64 @@
+package net.frju.androidquery.preprocessor.processor.freemarker.method;
+
+import net.frju.androidquery.preprocessor.processor.data.Column;
+import net.frju.androidquery.preprocessor.processor.data.Table;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModelException;
+
+public class JoinColumnNamesMethod implements TemplateMethodModelEx {
+
+    private static final String JOIN_COLUMN_NAMES = "joinColumnNames";
+
+    public static Map<String, Object> getMethodMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put(JOIN_COLUMN_NAMES, new JoinColumnNamesMethod());
+        return map;
+    }
+
+    private JoinColumnNamesMethod() {
+
+    }
+
+    /**
+     * List the cursor column aliases of a joined table, in the order expected by {@link JoinSettersMethod}
+     */
+    private void build(List<String> columnNames, String joinTableName, List<Table> tables) {
+        for (Table table : tables) {
+            if (table.getName().toLowerCase().equals(joinTableName.toLowerCase())) {
+                for (Column column : table.getColumns()) {
+                    if (column.isJoinable(tables)) {
+                        build(columnNames, column.getClassName(), tables);
+                    } else {
+                        columnNames.add(table.getName() + "_" + column.getName());
+                    }
+                }
+
+                break;
+            }
+        }
+    }
+
+    @Override
+    public Object exec(List arguments) throws TemplateModelException {
+        Object joinTableNameValue = arguments.get(0);
+        Object tablesValue = arguments.get(1);
+
+        String joinTableName = joinTableNameValue instanceof SimpleScalar ?
+                joinTableNameValue.toString() :
+                String.valueOf(joinTableNameValue);
+
+        List<Table> tables = Util.getTables(tablesValue);
+
+        List<String> columnNames = new ArrayList<>();
+        build(columnNames, joinTableName, tables);
+
+        return columnNames;
+    }
+}
@@ -12,6 +12,7 @@ import java.util.Map;
 import freemarker.template.SimpleScalar;
 import freemarker.template.TemplateMethodModelEx;
 import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateNumberModel;
 
 public class JoinSettersMethod implements TemplateMethodModelEx {
 
@@ -29,44 +30,50 @@ public class JoinSettersMethod implements TemplateMethodModelEx {
         mData = data;
     }
 
-    private String build(String joinTableName, List<Table> tables) {
-        StringBuilder sb = new StringBuilder();
-
+    /**
+     * Build the setters of a joined table, columns are read through the column index plan starting at
+     * the given index and following the same order as {@link JoinColumnNamesMethod}
+     *
+     * @return the next free index of the column index plan
+     */
+    private int build(StringBuilder sb, String joinTableName, List<Table> tables, int index) {
         for (Table table : tables) {
             if (table.getName().toLowerCase().equals(joinTableName.toLowerCase())) {
                 List<Column> columns = table.getColumns();
                 for (Column column : columns) {
                     if (column.isJoinable(tables)) {
-                        sb.append(build(column.getClassName(), tables));
+                        index = build(sb, column.getClassName(), tables, index);
                     } else {
-                        sb.append("} else if (cursor.getColumnName(x).equals(\"")
-                                .append(table.getName())
-                                .append("_")
-                                .append(column.getName())
-                                .append("\")) {")
+                        String columnIndex = "columnIndexes[" + index + "]";
+                        sb.append("if (")
+                                .append(columnIndex)
+                                .append(" != -1) {")
                                 .append(System.getProperty("line.separator"))
                                 .append(table.getName().toLowerCase())
                                 .append(".")
                                 .append(column.getName())
                                 .append(" = ")
-                                .append(StringUtils.assembleTypeGetter(mData, column.getType()))
-                                .append(";");
+                                .append(StringUtils.assembleTypeGetter(mData, column.getType(), columnIndex))
+                                .append(";")
+                                .append(System.getProperty("line.separator"))
+                                .append("}")
+                                .append(System.getProperty("line.separator"));
+                        index++;
                     }
-
-                    sb.append(System.getProperty("line.separator"));
                 }
 
                 break;
             }
         }
 
-        return sb.toString();
+        return index;
     }
 
     @Override
     public Object exec(List arguments) throws TemplateModelException {
         Object joinTableNameValue = arguments.get(0);
         Object tablesValue = arguments.get(1);
+        Object firstIndexValue = arguments.get(2);
 
         String joinTableName = joinTableNameValue instanceof SimpleScalar ?
                 joinTableNameValue.toString() :
@@ -74,12 +81,16 @@ public class JoinSettersMethod implements TemplateMethodModelEx {
 
         List<Table> tables = Util.getTables(tablesValue);
 
-        String join = build(joinTableName, tables);
-        if (join.length() > 0) {
-            // remove the trailing "}"
-            join = join.substring(0,join.length()-1);
+        int firstIndex;
+        if (firstIndexValue instanceof TemplateNumberModel) {
+            firstIndex = ((TemplateNumberModel) firstIndexValue).getAsNumber().intValue();
+        } else {
+            throw new IllegalStateException("The join firstIndex argument must be a number");
         }
 
-        return join;
+        StringBuilder sb = new StringBuilder();
+        build(sb, joinTableName, tables, firstIndex);
+
+        return sb.toString();
     }
-}
\ No newline at end of file
+}
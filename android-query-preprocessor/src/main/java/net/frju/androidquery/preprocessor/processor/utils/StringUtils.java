@@ -53,7 +53,14 @@ public class StringUtils {
         return null;
     }
 
-    public static String assembleTypeGetter(Data data, String type) {
+    /**
+     * Build the cursor getter expression for a given type
+     *
+     * @param type  The class reference of the model field
+     * @param index The expression giving the cursor column index to read
+     * @return The java expression reading the value from the cursor
+     */
+    public static String assembleTypeGetter(Data data, String type, String index) {
         String sqlType = type;
         TypeConverter converter = data.getConverterFromClass(type);
         if (converter != null) {
@@ -63,46 +70,94 @@ public class StringUtils {
         String getter;
         switch (sqlType) {
             case "java.lang.String":
-                getter = "cursor.getString(x)";
+                getter = "cursor.getString(" + index + ")";
                 break;
             case "java.lang.Long":
             case "long":
-                getter = "cursor.getLong(x)";
+                getter = "cursor.getLong(" + index + ")";
                 break;
             case "java.lang.Integer":
             case "int":
-                getter = "cursor.getInt(x)";
+                getter = "cursor.getInt(" + index + ")";
                 break;
             case "java.lang.Short":
             case "short":
-                getter = "cursor.getShort(x)";
+                getter = "cursor.getShort(" + index + ")";
                 break;
             case "java.lang.Boolean":
             case "boolean":
-                getter = "cursor.getInt(x) == 1 ? true : false";
+                getter = "cursor.getInt(" + index + ") == 1 ? true : false";
                 break;
             case "java.lang.Double":
             case "double":
-                getter = "cursor.getDouble(x)";
+                getter = "cursor.getDouble(" + index + ")";
                 break;
             case "java.lang.Float":
             case "float":
-                getter = "cursor.getFloat(x)";
+                getter = "cursor.getFloat(" + index + ")";
                 break;
             case "byte[]":
-                getter = "cursor.getBlob(x)";
+                getter = "cursor.getBlob(" + index + ")";
                 break;
             default:
                 getter = ""; // TODO: foreign key object
         }
 
         if (converter != null) {
-            getter = "new " + converter.getName() + "().convertFromDb(" + getter + ")";
+            getter = assembleConverterInstance(converter) + ".convertFromDb(" + getter + ")";
         }
 
         return getter;
     }
 
+    /**
+     * Build the statement binding the value of a model field to a compiled statement
+     *
+     * @param data    The data model
+     * @param varName The name of the model variable
+     * @param column  The model column to bind
+     * @param index   The index of the statement argument to bind, starting at 1
+     * @return The java statement binding the value, without boxing primitive types
+     */
+    public static String assembleStatementBinder(Data data, String varName, Column column, String index) {
+        String sqlType = column.getType();
+        String value = varName + "." + column.getName();
+        TypeConverter converter = data.getConverterFromClass(sqlType);
+        if (converter != null) {
+            sqlType = converter.getDbClassName();
+            value = assembleConverterInstance(converter) + ".convertToDb(" + value + ")";
+        }
+
+        switch (sqlType) {
+            case "long":
+            case "int":
+            case "short":
+                return "statement.bindLong(" + index + ", " + value + ");";
+            case "boolean":
+                return "statement.bindLong(" + index + ", " + value + " ? 1 : 0);";
+            case "double":
+            case "float":
+                return "statement.bindDouble(" + index + ", " + value + ");";
+            default:
+                // Nullable values, DatabaseUtils binds them the same way ContentValues would
+                return "DatabaseUtils.bindObjectToProgram(statement, " + index + ", " + value + ");";
+        }
+    }
+
+    /**
+     * Build the expression giving access to the converter instance shared by the Q generated code
+     *
+     * @param converter The type converter
+     * @return The java expression returning the converter instance
+     */
+    public static String assembleConverterInstance(TypeConverter converter) {
+        if (converter.isStateless()) {
+            return converter.getInstanceName();
+        }
+
+        return converter.getInstanceName() + ".get()";
+    }
+
     /**
      * Determine the data type of the provided class reference and return
      * the associated SQL data type
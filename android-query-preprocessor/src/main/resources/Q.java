@@ -2,6 +2,8 @@ package ${package_name};
 
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteStatement;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.net.Uri;
@@ -12,15 +14,36 @@ import net.frju.androidquery.operation.function.*;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Q {
 
-    private static DefaultResolver sResolver;
+    private static volatile DefaultResolver sResolver;
+    private static volatile boolean sIsInitialized;
+
+    <#list converters as converter>
+    <#if converter.isStateless()>
+    private static final ${converter.getName()} ${converter.getInstanceName()} = new ${converter.getName()}();
+    <#else>
+    private static final ThreadLocal<${converter.getName()}> ${converter.getInstanceName()} = new ThreadLocal<${converter.getName()}>() {
+        @Override
+        protected ${converter.getName()} initialValue() {
+            return new ${converter.getName()}();
+        }
+    };
+    </#if>
+    </#list>
 
     public static void init(Context context) {
-        if (sResolver == null) {
-            sResolver = new DefaultResolver();
-            sResolver.init(context);
+        if (!sIsInitialized) {
+            synchronized (Q.class) {
+                if (!sIsInitialized) {
+                    sResolver = new DefaultResolver(); // already needed by the providers constructors
+                    sResolver.init(context);
+                    sIsInitialized = true;
+                }
+            }
         }
     }
 
@@ -28,35 +51,66 @@ public class Q {
         return sResolver;
     }
 
+    // Fully qualified, a model could be named Transaction
+    public static @NonNull <T> net.frju.androidquery.operation.function.Transaction.Builder<T> transaction(@NonNull BaseLocalDatabaseProvider databaseProvider, @NonNull Callable<T> work) {
+        return net.frju.androidquery.operation.function.Transaction.getBuilder(databaseProvider, work);
+    }
+
     public static class DefaultResolver implements Resolver {
 
-        private static HashMap<Class<?>, BaseLocalDatabaseProvider> mLocalProviders = new HashMap<>();
-        private static HashMap<Class<?>, BaseContentDatabaseProvider> mContentProviders = new HashMap<>();
+        private static final ConcurrentHashMap<Class<?>, BaseLocalDatabaseProvider> mLocalProviders = new ConcurrentHashMap<>();
+        private static final ConcurrentHashMap<Class<?>, BaseContentDatabaseProvider> mContentProviders = new ConcurrentHashMap<>();
+        private static final ConcurrentHashMap<Class<?>, TableDescription> mTableDescriptions = new ConcurrentHashMap<>();
+
+        static {
+            <#list tables as table>
+            mTableDescriptions.put(${table.getPackage()}.${table.getName()}.class, s${table.getName()});
+            </#list>
+        }
 
+        <#assign localProviderClasses = []>
+        <#assign contentProviderClasses = []>
+        <#list tables as table>
+            <#if table.getLocalDatabaseProvider().toString() != "java.lang.Void" && !localProviderClasses?seq_contains(table.getLocalDatabaseProvider().toString())>
+                <#assign localProviderClasses = localProviderClasses + [table.getLocalDatabaseProvider().toString()]>
+            </#if>
+            <#if table.getContentDatabaseProvider().toString() != "java.lang.Void" && !contentProviderClasses?seq_contains(table.getContentDatabaseProvider().toString())>
+                <#assign contentProviderClasses = contentProviderClasses + [table.getContentDatabaseProvider().toString()]>
+            </#if>
+        </#list>
         public void init(@NonNull Context context) {
-            BaseLocalDatabaseProvider localProvider;
-            BaseContentDatabaseProvider contentProvider;
+            // Only one instance per provider, shared by all its tables
+            <#list localProviderClasses as providerClass>
+            BaseLocalDatabaseProvider localProvider${providerClass?index} = new ${providerClass}(context.getApplicationContext());
+            </#list>
+            <#list contentProviderClasses as providerClass>
+            BaseContentDatabaseProvider contentProvider${providerClass?index} = new ${providerClass}(context.getContentResolver());
+            </#list>
 
             <#list tables as table>
             <#if table.getLocalDatabaseProvider().toString() != "java.lang.Void">
-                    localProvider = new ${table.getLocalDatabaseProvider().toString()}(context.getApplicationContext());
-                    mLocalProviders.put(${table.getPackage()}.${table.getName()}.class, localProvider);
-                    mLocalProviders.put(${table.getName()}.class, localProvider); // to be more error-tolerant
+                    mLocalProviders.put(${table.getPackage()}.${table.getName()}.class, localProvider${localProviderClasses?seq_index_of(table.getLocalDatabaseProvider().toString())});
+                    mLocalProviders.put(${table.getName()}.class, localProvider${localProviderClasses?seq_index_of(table.getLocalDatabaseProvider().toString())}); // to be more error-tolerant
             </#if>
             <#if table.getContentDatabaseProvider().toString() != "java.lang.Void">
-                    contentProvider = new ${table.getContentDatabaseProvider().toString()}(context.getContentResolver());
-                    mContentProviders.put(${table.getPackage()}.${table.getName()}.class, contentProvider);
-                    mContentProviders.put(${table.getName()}.class, contentProvider); // to be more error-tolerant
+                    mContentProviders.put(${table.getPackage()}.${table.getName()}.class, contentProvider${contentProviderClasses?seq_index_of(table.getContentDatabaseProvider().toString())});
+                    mContentProviders.put(${table.getName()}.class, contentProvider${contentProviderClasses?seq_index_of(table.getContentDatabaseProvider().toString())}); // to be more error-tolerant
             </#if>
             </#list>
         }
 
         @Override
         public @NonNull TableDescription getTableDescription(@NonNull Class<?> classDef) {
+            TableDescription tableDescription = mTableDescriptions.get(classDef);
+            if (tableDescription != null) {
+                return tableDescription;
+            }
+
+            // Slow path, only reached once per class which is not directly a @Table one
             <#assign isAssignableFrom>
                 <#list tables as table>
                 } else if (classDef.isAssignableFrom(${table.getPackage()}.${table.getName()}.class)) {
-                    return s${table.getName()};
+                    tableDescription = s${table.getName()};
                 </#list>
                 }
             </#assign>
@@ -64,6 +118,9 @@ public class Q {
             ${isAssignableFrom?trim?remove_beginning("} else ")} else {
                 throw new IllegalStateException("Please ensure all SQL tables are annotated with @Table");
             }
+
+            mTableDescriptions.put(classDef, tableDescription);
+            return tableDescription;
         }
 
         @Override
@@ -109,16 +166,67 @@ public class Q {
 
         <#assign unionInsertColumnNames><#list table.getMutableColumns(tables) as column>${column.getRealName()},</#list></#assign>
 
+        <#assign insertColumnNames><#list table.getMutableColumns(tables) as column><#if !column.hasAutoIncrement()>${column.getRealName()},</#if></#list></#assign>
+        <#assign updateColumnSets><#list table.getMutableColumns(tables) as column><#if !column.hasAutoIncrement()>${column.getRealName()} = ?,</#if></#list></#assign>
+        <#assign upsertColumnSets><#list table.getMutableColumns(tables) as column><#if !column.hasAutoIncrement()>${column.getRealName()} = excluded.${column.getRealName()},</#if></#list></#assign>
+        <#assign insertColumnArgs><#list table.getMutableColumns(tables) as column><#if !column.hasAutoIncrement()>?,</#if></#list></#assign>
+
         <#assign packagedTableName>
             ${table.getPackage()}.${table.getName()}
         </#assign>
 
+        <#assign columnIndexPlan>
+            <#list table.getMutableColumns(tables) as column>
+                "${column.getRealName()}",
+            </#list>
+            <#list table.getColumns() as column>
+                <#if column.isJoinable(tables)>
+                    <#list joinColumnNames(column.getClassName(), tables) as columnName>
+                        "${columnName}",
+                    </#list>
+                </#if>
+            </#list>
+        </#assign>
+
         public static class ${table.getName()} implements TableDescription {
 
             <#list table.getColumns() as column>
                 public static final String ${formatConstant(column.getName())} = "${column.getRealName()}";
             </#list>
 
+            // Cursor column names, in the order used by the column index plan of getSingleResult()
+            private static final String[] sColumnIndexPlan = new String[]{${columnIndexPlan?trim?remove_ending(",")}};
+
+            private static final String[] sColumnNames = new String[]{${getColumnNames?trim?remove_ending(",")}};
+
+            private static final String[] sColumnNamesWithTablePrefix = new String[]{${getColumnNamesWithTablePrefix?trim?remove_ending(",")}};
+
+            <#if insertColumnNames == "">
+            private static final String sInsertQuery = "INSERT INTO ${table.getRealName()} DEFAULT VALUES";
+            <#else>
+            private static final String sInsertQuery = "INSERT INTO ${table.getRealName()} (${insertColumnNames?remove_ending(",")}) VALUES (${insertColumnArgs?remove_ending(",")})";
+            </#if>
+
+            <#if table.getPrimaryKeyName() == "" || updateColumnSets == "">
+            private static final String sUpdateByPrimaryKeyQuery = null;
+            <#else>
+            private static final String sUpdateByPrimaryKeyQuery = "UPDATE ${table.getRealName()} SET ${updateColumnSets?remove_ending(",")} WHERE ${table.getPrimaryKeyRealName()} = ?";
+            </#if>
+
+            <#if table.getPrimaryKeyName() == "" || isPrimaryKeyAutoIncrement(table) == "true" || insertColumnNames == "">
+            private static final String sUpsertQuery = null;
+            <#else>
+            private static final String sUpsertQuery = sInsertQuery + " ON CONFLICT(${table.getPrimaryKeyRealName()}) DO UPDATE SET ${upsertColumnSets?remove_ending(",")}";
+            </#if>
+
+            private static final String[] sIndexNames = new String[]{
+            <#list table.getMutableColumns(tables) as column>
+                <#if column.isIndex()>
+                    "${table.getName()}_${column.getName()}_index",
+                </#if>
+            </#list>
+            };
+
             @Override
             public @NonNull String getTableRealName() {
                 return "${table.getRealName()}";
@@ -141,13 +249,7 @@ public class Q {
 
             @Override
             public String[] getIndexNames() {
-                return new String[]{
-                <#list table.getMutableColumns(tables) as column>
-                    <#if column.isIndex()>
-                        "${table.getName()}_${column.getName()}_index",
-                    </#if>
-                </#list>
-                };
+                return sIndexNames;
             }
 
             @Override
@@ -163,43 +265,67 @@ public class Q {
                 return (sb.length() > 0) ? sb.toString() : null;
             }
 
+            @Override
+            public int[] getColumnIndexes(Cursor cursor) {
+                int[] columnIndexes = new int[sColumnIndexPlan.length];
+
+                for (int i = 0; i < sColumnIndexPlan.length; i++) {
+                    columnIndexes[i] = cursor.getColumnIndex(sColumnIndexPlan[i]);
+                }
+
+                return columnIndexes;
+            }
+
             @Override
             public ${packagedTableName} getSingleResult(Cursor cursor) {
                 if (cursor != null){
-                    ${packagedTableName} ${table.getName()?lower_case} = new ${packagedTableName}();
+                    return getSingleResult(cursor, getColumnIndexes(cursor));
+                }
 
-                    ${joinReferences(table.getName(),tables)}
-
-                    for (int x = 0; x < cursor.getColumnCount(); x++) {
-                        <#assign retrieveSQLSelectResults>
-                            <#list table.getColumns() as column>
-                                <#if column.isJoinable(tables)>
-                                    ${join(column.getClassName(),tables)}
-                                <#else>
-                                    } else if (cursor.getColumnName(x).equals(${formatConstant(column.getName())})) {
-                                        ${table.getName()?lower_case}.${column.getName()} = ${getCursorGetter(column.getType())};
-                                </#if>
-                            </#list>
-                            }
-                        </#assign>
-
-                        ${retrieveSQLSelectResults?trim?remove_beginning("} else ")}
-                    }
+                return null;
+            }
 
+            @Override
+            public ${packagedTableName} getSingleResult(Cursor cursor, int[] columnIndexes) {
+                if (cursor != null){
+                    ${packagedTableName} ${table.getName()?lower_case} = new ${packagedTableName}();
+                    fillModel(cursor, columnIndexes, ${table.getName()?lower_case});
                     return ${table.getName()?lower_case};
                 }
 
                 return null;
             }
 
+            @Override
+            public void fillModel(@NonNull Cursor cursor, @NonNull int[] columnIndexes, @NonNull Object model) {
+                ${packagedTableName} ${table.getName()?lower_case} = (${packagedTableName})model;
+
+                ${joinReferences(table.getName(),tables)}
+
+                <#list table.getMutableColumns(tables) as column>
+                if (columnIndexes[${column?index?c}] != -1) {
+                    ${table.getName()?lower_case}.${column.getName()} = ${getCursorGetter(column.getType(), "columnIndexes[" + column?index?c + "]")};
+                }
+                </#list>
+
+                <#assign joinFirstIndex = table.getMutableColumns(tables)?size>
+                <#list table.getColumns() as column>
+                    <#if column.isJoinable(tables)>
+                        ${join(column.getClassName(), tables, joinFirstIndex)}
+                        <#assign joinFirstIndex = joinFirstIndex + joinColumnNames(column.getClassName(), tables)?size>
+                    </#if>
+                </#list>
+            }
+
             @Override
             public ${packagedTableName}[] getArrayResult(Cursor cursor) {
                 if (cursor != null){
                     ${packagedTableName}[]result = new ${packagedTableName}[cursor.getCount()];
+                    int[] columnIndexes = getColumnIndexes(cursor);
 
                     cursor.moveToFirst();
                     for(int i=0;!cursor.isAfterLast();i++){
-                        result[i]=getSingleResult(cursor);
+                        result[i]=getSingleResult(cursor, columnIndexes);
                         cursor.moveToNext();
                     }
 
@@ -213,12 +339,12 @@ public class Q {
 
             @Override
             public String[] getColumnNames() {
-                return new String[]{${getColumnNames?remove_ending(",")}};
+                return sColumnNames;
             }
 
             @Override
             public String[] getColumnNamesWithTablePrefix() {
-                return new String[]{${getColumnNamesWithTablePrefix?remove_ending(",")}};
+                return sColumnNamesWithTablePrefix;
             }
 
             @Override
@@ -257,6 +383,56 @@ public class Q {
                 return contentValues;
             }
 
+            @Override
+            public @NonNull String getInsertQuery() {
+                return sInsertQuery;
+            }
+
+            @Override
+            public void bindInsert(@NonNull SQLiteStatement statement, @NonNull Object model) {
+                ${packagedTableName} ${table.getName()?lower_case} = (${packagedTableName})model;
+
+                <#assign bindIndex = 1>
+                <#list table.getMutableColumns(tables) as column>
+                    <#if !column.hasAutoIncrement()>
+                    ${getStatementBinder(table.getName()?lower_case, column, bindIndex?c)}
+                    <#assign bindIndex = bindIndex + 1>
+                    </#if>
+                </#list>
+            }
+
+            @Override
+            public String getUpsertQuery() {
+                return sUpsertQuery;
+            }
+
+            @Override
+            public String getUpdateByPrimaryKeyQuery() {
+                return sUpdateByPrimaryKeyQuery;
+            }
+
+            @Override
+            public void bindUpdateByPrimaryKey(@NonNull SQLiteStatement statement, @NonNull Object model) {
+                <#if table.getPrimaryKeyName() != "" && updateColumnSets != "">
+                ${packagedTableName} ${table.getName()?lower_case} = (${packagedTableName})model;
+
+                <#assign bindIndex = 1>
+                <#list table.getMutableColumns(tables) as column>
+                    <#if !column.hasAutoIncrement()>
+                    ${getStatementBinder(table.getName()?lower_case, column, bindIndex?c)}
+                    <#assign bindIndex = bindIndex + 1>
+                    </#if>
+                </#list>
+                <#list table.getColumns() as column>
+                    <#if column.hasPrimaryKey()>
+                    ${getStatementBinder(table.getName()?lower_case, column, bindIndex?c)}
+                    </#if>
+                </#list>
+                <#else>
+                throw new IllegalStateException("update with model() method require a primary key");
+                </#if>
+            }
+
             <#if table.getContentDatabaseProvider().toString() != "java.lang.Void">
             public static @NonNull Uri getContentUri() {
                 return Q.getResolver().getContentDatabaseProviderForModel(${packagedTableName}.class).getUri(${packagedTableName}.class);
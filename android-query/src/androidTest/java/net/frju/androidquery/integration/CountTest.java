@@ -15,15 +15,32 @@
  */
 package net.frju.androidquery.integration;
 
+import android.content.ContentValues;
+
+import net.frju.androidquery.database.QueryCallback;
 import net.frju.androidquery.gen.Q;
+import net.frju.androidquery.integration.utils.SetupData;
 import net.frju.androidquery.integration.utils.SetupUser;
 import net.frju.androidquery.operation.condition.Where;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.TestScheduler;
+
 import static net.frju.androidquery.operation.condition.Where.where;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Samuel Kirton [sam@memtrip.com]
@@ -64,4 +81,104 @@ public class CountTest extends IntegrationTest {
         // exercise clause, therefore, we assert that 3 rows will be counted
         assertEquals(3, count);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCountIsQueriedAsynchronously() throws Exception {
+        assertEquals(4L, (long) Q.User.count().queryAsync().get());
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicLong result = new AtomicLong();
+        final AtomicReference<String> threadName = new AtomicReference<>();
+        Q.User.count()
+                .where(where(Q.User.TIMESTAMP, Where.Op.IS, SetupUser.CLYDE_TIMESTAMP))
+                .queryAsync(new QueryCallback<Long>() {
+                    @Override
+                    public void onResult(Long count) {
+                        result.set(count);
+                        threadName.set(Thread.currentThread().getName());
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        latch.countDown();
+                    }
+                });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, result.get());
+        assertTrue(threadName.get().startsWith("androidquery-read-"));
+    }
+
+    @Test
+    public void testRxCountCompletes() {
+        List<Long> counts = Q.User.count().rx2().toList().blockingGet();
+        assertEquals(1, counts.size());
+        assertEquals(4L, (long) counts.get(0));
+
+        assertEquals(4L, (long) Q.User.count().rx().toBlocking().single());
+    }
+
+    @Test
+    public void testObservedCountIsOnlyEmittedWhenChanged() throws Exception {
+        TestObserver<Long> observer = Q.User.count().observe2(0).test();
+        try {
+            awaitValueCount(observer, 1);
+
+            // neither an other table nor an unchanged count emit anything
+            Q.Data.insert(SetupData.createData("data")).query();
+            ContentValues values = new ContentValues();
+            values.put(Q.User.TIMESTAMP, 1L);
+            Q.User.update().values(values).query();
+
+            Q.User.delete()
+                    .where(where(Q.User.USERNAME, Where.Op.IS, SetupUser.ANGIE_USER_NAME))
+                    .query();
+            // the re-runs are serialized, so the one of the last modification comes last
+            awaitValueCount(observer, 2);
+            observer.assertValues(4L, 3L);
+        } finally {
+            observer.dispose();
+            getSetupData().tearDownTestData();
+        }
+    }
+
+    @Test
+    public void testObservedCountIsEmittedDuringContinuousWrites() throws Exception {
+        final TestScheduler scheduler = new TestScheduler();
+        RxJavaPlugins.setComputationSchedulerHandler(new Function<Scheduler, Scheduler>() {
+            @Override
+            public Scheduler apply(Scheduler defaultScheduler) throws Exception {
+                return scheduler;
+            }
+        });
+        TestObserver<Long> observer = Q.Data.count().observe2(200, 300).test();
+        try {
+            awaitValueCount(observer, 1);
+            long initialCount = observer.values().get(0);
+
+            // a write every 100ms never lets the debounce time elapse...
+            for (int i = 0; i < 3; i++) {
+                Q.Data.insert(SetupData.createData("data" + i)).query();
+                observer.assertValueCount(1);
+                scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+            }
+
+            // ...but the query is re-run 300ms after the first one
+            awaitValueCount(observer, 2);
+            observer.assertValues(initialCount, initialCount + 3);
+        } finally {
+            observer.dispose();
+            RxJavaPlugins.setComputationSchedulerHandler(null);
+            getSetupData().tearDownTestData();
+        }
+    }
+
+    private static void awaitValueCount(TestObserver<?> observer, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (observer.valueCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        observer.assertValueCount(count);
+    }
+}
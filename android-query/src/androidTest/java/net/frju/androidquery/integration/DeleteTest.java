@@ -16,7 +16,9 @@
 package net.frju.androidquery.integration;
 
 import net.frju.androidquery.gen.Q;
+import net.frju.androidquery.integration.models.Data;
 import net.frju.androidquery.integration.models.User;
+import net.frju.androidquery.integration.utils.SetupData;
 import net.frju.androidquery.integration.utils.SetupUser;
 import net.frju.androidquery.operation.condition.Where;
 
@@ -24,6 +26,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static net.frju.androidquery.operation.condition.In.in;
+import static net.frju.androidquery.operation.condition.Or.or;
 import static net.frju.androidquery.operation.condition.Where.where;
 import static org.junit.Assert.assertEquals;
 
@@ -81,4 +84,68 @@ public class DeleteTest extends IntegrationTest {
         assertEquals(1, users.length);
         assertEquals(3, deletedRows);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUsersAreDeletedWithInBeyondVariableLimit() {
+        Object[] ids = new Object[1200];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+
+        int deletedRows = Q.User.delete()
+                .where(in(Q.User.ID, ids))
+                .query();
+
+        // The 1200 values cannot be bound in a single statement, they are split into chunks
+        assertEquals(0, Q.User.count().query());
+        assertEquals(4, deletedRows);
+    }
+
+    @Test
+    public void testInIsChunkedAroundTheOtherConditionValues() {
+        Object[] ids = new Object[900];
+        Object[] usernames = new Object[600];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = 0; i < usernames.length; i++) {
+            usernames[i] = i == 0 ? SetupUser.ANGIE_USER_NAME : "user" + i;
+        }
+
+        // The 600 nested values leave room for chunks of 399 ids only
+        int deletedRows = Q.User.delete()
+                .where(in(Q.User.ID, ids), or(in(Q.User.USERNAME, usernames), where(Q.User.ID, Where.Op.IS, SetupUser.JOSH_ID)))
+                .query();
+
+        assertEquals(2, deletedRows);
+        assertEquals(2, Q.User.count().query());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNestedOversizedInIsRejected() {
+        Object[] ids = new Object[1200];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+
+        Q.User.delete()
+                .where(or(in(Q.User.ID, ids), where(Q.User.USERNAME, Where.Op.IS, SetupUser.ANGIE_USER_NAME)))
+                .query();
+    }
+
+    @Test
+    public void testManyModelsAreDeleted() {
+        Data[] data = new Data[6000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = SetupData.createData("data" + i);
+        }
+        Q.Data.insert(data).query();
+        long count = Q.Data.count().query();
+
+        // Enough models to be matched against a temporary table
+        int deletedRows = Q.Data.delete().model(data).query();
+
+        assertEquals(6000, deletedRows);
+        assertEquals(count - 6000, Q.Data.count().query());
+    }
+}
@@ -0,0 +1,53 @@
+package net.frju.androidquery.integration;
+
+import net.frju.androidquery.gen.Q;
+import net.frju.androidquery.integration.models.QueuedData;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class GroupCommitTest extends IntegrationTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+
+        Q.QueuedData.delete().query();
+    }
+
+    @Test
+    public void testQueuedInsertsAreCommittedTogether() throws Exception {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(Q.QueuedData.insert(createQueuedData("queued" + i)).enqueue());
+        }
+
+        int inserted = 0;
+        for (Future<Integer> future : futures) {
+            inserted += future.get();
+        }
+
+        assertEquals(50, inserted);
+        assertEquals(50, Q.QueuedData.count().query());
+    }
+
+    @Test
+    public void testQueuedInsertIsEmittedOnceCommitted() {
+        int inserted = Q.QueuedData.insert(createQueuedData("queued")).enqueueRx2().blockingFirst();
+
+        assertEquals(1, inserted);
+        assertEquals(1, Q.QueuedData.count().query());
+    }
+
+    private static QueuedData createQueuedData(String name) {
+        QueuedData data = new QueuedData();
+        data.name = name;
+        return data;
+    }
+}
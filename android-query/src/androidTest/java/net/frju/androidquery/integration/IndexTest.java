@@ -20,6 +20,8 @@ import android.database.Cursor;
 import net.frju.androidquery.gen.Q;
 import net.frju.androidquery.integration.models.Data;
 import net.frju.androidquery.integration.models.Log;
+import net.frju.androidquery.integration.utils.SetupData;
+import net.frju.androidquery.operation.condition.Where;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -27,6 +29,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 
+import static net.frju.androidquery.operation.condition.Where.where;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
@@ -77,6 +80,23 @@ public class IndexTest extends IntegrationTest {
         assertNotEquals(0, data[2].id);
     }
 
+    @Test
+    public void testAutoIncrementPrimaryKeySetOnMultipleInsert() {
+        Data[] data = new Data[]{
+                SetupData.createData("data4"),
+                SetupData.createData("data5"),
+        };
+
+        assertEquals(2, Q.Data.insert(data).query());
+
+        assertNotEquals(0, data[0].id);
+        assertNotEquals(0, data[1].id);
+        assertNotEquals(data[0].id, data[1].id);
+        assertEquals("data5", Q.Data.select()
+                .where(where(Q.Data.ID, Where.Op.IS, data[1].id))
+                .querySingle().name);
+    }
+
     @Test
     public void testNoAutoIncrementPrimaryKey() {
         Log[] log = Q.Log.select().query().toArray();
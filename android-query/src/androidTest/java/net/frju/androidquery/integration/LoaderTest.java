@@ -0,0 +1,72 @@
+package net.frju.androidquery.integration;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.test.InstrumentationRegistry;
+
+import net.frju.androidquery.database.BaseSelectLoader;
+import net.frju.androidquery.gen.Q;
+import net.frju.androidquery.integration.models.User;
+import net.frju.androidquery.operation.function.CursorResult;
+import net.frju.androidquery.utils.ChangeDispatcher;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoaderTest extends IntegrationTest {
+
+    private static final Uri USERS_URI = Uri.parse("content://net.frju.androidquery.test/users");
+
+    private static class UsersLoader extends BaseSelectLoader<User> {
+
+        UsersLoader(Context context) {
+            super(context, USERS_URI, 100);
+        }
+
+        @Override
+        public CursorResult<User> doSelect() {
+            CursorResult<User> result = Q.User.select().query();
+            result.setNotificationUri(getContext().getContentResolver(), USERS_URI);
+            return result;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        getSetupUser().tearDownFourTestUsers();
+        getSetupUser().setupFourTestUsers();
+    }
+
+    @Test
+    public void testCursorChangesAreDispatchedUnderTheLoaderUri() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        ChangeDispatcher.Listener listener = new ChangeDispatcher.Listener() {
+            @Override
+            public void onChange(Uri uri) {
+                latch.countDown();
+            }
+        };
+        ChangeDispatcher.addListener(USERS_URI, listener);
+
+        Context context = InstrumentationRegistry.getTargetContext();
+        CursorResult<User> result = new UsersLoader(context).loadInBackground();
+        try {
+            assertEquals(4, result.getCount());
+
+            // the cursor forwards the change to the loader observer without URI
+            context.getContentResolver().notifyChange(USERS_URI, null);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            result.close();
+            ChangeDispatcher.removeListener(USERS_URI, listener);
+        }
+    }
+}
@@ -19,16 +19,28 @@ import net.frju.androidquery.gen.Q;
 import net.frju.androidquery.integration.models.User;
 import net.frju.androidquery.integration.utils.SetupUser;
 import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.function.CursorResult;
+import net.frju.androidquery.operation.function.Page;
+import net.frju.androidquery.operation.function.Select;
 import net.frju.androidquery.operation.keyword.OrderBy;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.subscribers.TestSubscriber;
+
 import static net.frju.androidquery.operation.condition.And.and;
 import static net.frju.androidquery.operation.condition.In.in;
 import static net.frju.androidquery.operation.condition.Or.or;
 import static net.frju.androidquery.operation.condition.Where.where;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Samuel Kirton [sam@memtrip.com]
@@ -379,4 +391,185 @@ public class ReadTest extends IntegrationTest {
         assertEquals(SetupUser.CLYDE_USER_NAME, users[0].username);
         assertEquals(SetupUser.ANGIE_USER_NAME, users[1].username);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCursorWithMissingColumnsSelection() {
+        User[] users = Q.User.fromCursor(Q.User.raw("SELECT username, timestamp FROM User ORDER BY username ASC").query())
+                .toArray();
+
+        // the columns which are not part of the cursor are simply left untouched
+        assertEquals(4, users.length);
+        assertEquals(SetupUser.ANGIE_USER_NAME, users[0].username);
+        assertEquals(SetupUser.ANGIE_TIMESTAMP, users[0].timestamp);
+        assertEquals(0, users[0].id);
+        assertEquals(0, users[0].count);
+    }
+
+    @Test
+    public void testColumnsSelection() {
+        User[] users = Q.User.select()
+                .columns(Q.User.USERNAME, Q.User.TIMESTAMP)
+                .orderBy(Q.User.USERNAME, OrderBy.Order.ASC)
+                .query()
+                .toArray();
+
+        // only the selected columns are read
+        assertEquals(4, users.length);
+        assertEquals(SetupUser.ANGIE_USER_NAME, users[0].username);
+        assertEquals(SetupUser.ANGIE_TIMESTAMP, users[0].timestamp);
+        assertEquals(0, users[0].id);
+        assertEquals(0, users[0].count);
+    }
+
+    @Test
+    public void testForwardOnlyWithReusedModel() {
+        User reusedUser = new User();
+        List<String> usernames = new ArrayList<>();
+
+        CursorResult<User> result = Q.User.select()
+                .orderBy(Q.User.USERNAME, OrderBy.Order.ASC)
+                .query();
+        try {
+            for (User user : result.forwardOnly(reusedUser)) {
+                assertSame(reusedUser, user);
+                usernames.add(user.username);
+            }
+        } finally {
+            result.close();
+        }
+
+        assertEquals(4, usernames.size());
+        assertEquals(SetupUser.ANGIE_USER_NAME, usernames.get(0));
+        assertEquals(SetupUser.JOSH_USER_NAME, usernames.get(3));
+    }
+
+    @Test
+    public void testKeysetPagination() {
+        Page<User> firstPage = Q.User.select()
+                .orderBy(Q.User.USERNAME, OrderBy.Order.ASC)
+                .queryPage(3);
+
+        assertEquals(3, firstPage.getItems().size());
+        assertEquals(SetupUser.ANGIE_USER_NAME, firstPage.getItems().get(0).username);
+        assertTrue(firstPage.hasNext());
+
+        Page<User> secondPage = Q.User.select()
+                .orderBy(Q.User.USERNAME, OrderBy.Order.ASC)
+                .pageAfter(firstPage.getNextKey())
+                .queryPage(3);
+
+        assertEquals(1, secondPage.getItems().size());
+        assertEquals(SetupUser.JOSH_USER_NAME, secondPage.getItems().get(0).username);
+        assertFalse(secondPage.hasNext());
+    }
+
+    @Test
+    public void testKeysetPaginationOnNullableColumnsNotProjected() {
+        // nullField is null for every user, the id making the order unique
+        Page<User> firstPage = Q.User.select()
+                .columns(Q.User.USERNAME)
+                .orderBy(Q.User.NULL_FIELD, OrderBy.Order.DESC)
+                .orderBy(Q.User.ID, OrderBy.Order.ASC)
+                .queryPage(3);
+
+        assertEquals(3, firstPage.getItems().size());
+        assertEquals(SetupUser.ANGIE_USER_NAME, firstPage.getItems().get(0).username);
+        assertTrue(firstPage.hasNext());
+
+        Page<User> secondPage = Q.User.select()
+                .columns(Q.User.USERNAME)
+                .orderBy(Q.User.NULL_FIELD, OrderBy.Order.DESC)
+                .orderBy(Q.User.ID, OrderBy.Order.ASC)
+                .pageAfter(firstPage.getNextKey())
+                .queryPage(3);
+
+        assertEquals(1, secondPage.getItems().size());
+        assertEquals(SetupUser.CLYDE_USER_NAME, secondPage.getItems().get(0).username);
+        assertFalse(secondPage.hasNext());
+    }
+
+    @Test
+    public void testForEachChunk() {
+        final List<List<User>> chunks = new ArrayList<>();
+
+        Q.User.select().forEachChunk(3, new Select.ChunkConsumer<User>() {
+            @Override
+            public void accept(List<User> chunk) {
+                chunks.add(chunk);
+            }
+        });
+
+        // chunks follow the primary key
+        assertEquals(2, chunks.size());
+        assertEquals(3, chunks.get(0).size());
+        assertEquals(SetupUser.ANGIE_ID, chunks.get(0).get(0).id);
+        assertEquals(1, chunks.get(1).size());
+        assertEquals(SetupUser.CLYDE_ID, chunks.get(1).get(0).id);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPageSizeIsRejected() {
+        Q.User.select()
+                .orderBy(Q.User.ID, OrderBy.Order.ASC)
+                .queryPage(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyChunkSizeIsRejected() {
+        Q.User.select().forEachChunk(0, new Select.ChunkConsumer<User>() {
+            @Override
+            public void accept(List<User> chunk) {
+                fail();
+            }
+        });
+    }
+
+    @Test
+    public void testFlowableEmitsRowsOnRequest() {
+        TestSubscriber<User> subscriber = Q.User.select()
+                .orderBy(Q.User.ID, OrderBy.Order.ASC)
+                .flowable()
+                .test(2);
+
+        // the rows are read on the requesting thread, and no more row is read until requested
+        subscriber.assertValueCount(2);
+        subscriber.assertNotComplete();
+        assertEquals(SetupUser.ANGIE_ID, subscriber.values().get(0).id);
+
+        subscriber.request(10);
+        subscriber.assertValueCount(4);
+        subscriber.assertComplete();
+        assertEquals(SetupUser.CLYDE_ID, subscriber.values().get(3).id);
+    }
+
+    @Test
+    public void testFlowableEmitsBatches() {
+        List<List<User>> batches = Q.User.select()
+                .orderBy(Q.User.ID, OrderBy.Order.ASC)
+                .flowable(3)
+                .toList()
+                .blockingGet();
+
+        assertEquals(2, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals(1, batches.get(1).size());
+        assertEquals(SetupUser.CLYDE_ID, batches.get(1).get(0).id);
+    }
+
+    @Test
+    public void testFlowableReadsEachBatchWithItsOwnQuery() {
+        TestSubscriber<List<User>> subscriber = Q.User.select()
+                .flowable(2)
+                .test(1);
+        subscriber.assertValueCount(1);
+
+        // the next batch sees the rows modified in between
+        Q.User.delete().where(where(Q.User.ID, Where.Op.IS, SetupUser.CLYDE_ID)).query();
+
+        subscriber.request(10);
+        subscriber.assertComplete();
+        subscriber.assertValueCount(2);
+        assertEquals(1, subscriber.values().get(1).size());
+        assertEquals(SetupUser.GILL_ID, subscriber.values().get(1).get(0).id);
+    }
+}
@@ -0,0 +1,222 @@
+package net.frju.androidquery.integration;
+
+import net.frju.androidquery.database.BaseLocalDatabaseProvider;
+import net.frju.androidquery.database.TableChange;
+import net.frju.androidquery.gen.Q;
+import net.frju.androidquery.integration.models.Data;
+import net.frju.androidquery.integration.models.User;
+import net.frju.androidquery.integration.utils.SetupData;
+import net.frju.androidquery.integration.utils.SetupUser;
+import net.frju.androidquery.operation.condition.Where;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static net.frju.androidquery.operation.condition.Where.where;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TransactionTest extends IntegrationTest {
+
+    private BaseLocalDatabaseProvider mProvider;
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        getSetupUser().tearDownFourTestUsers();
+        getSetupUser().setupFourTestUsers();
+        getSetupData().tearDownTestData();
+        getSetupData().setupTestData();
+
+        mProvider = Q.getResolver().getLocalDatabaseProviderForModel(User.class);
+    }
+
+    @Test
+    public void testOperationsOnSeveralTablesAreCommittedTogether() {
+        final List<Set<String>> notifications = new ArrayList<>();
+        BaseLocalDatabaseProvider.OnTablesChangedListener listener = new BaseLocalDatabaseProvider.OnTablesChangedListener() {
+            @Override
+            public void onTablesChanged(Set<String> tableNames) {
+                notifications.add(tableNames);
+            }
+        };
+        mProvider.addOnTablesChangedListener(listener);
+
+        try {
+            int deleted = Q.transaction(mProvider, new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    Q.Data.insert(SetupData.createData("data4")).query();
+                    int deleted = Q.User.delete()
+                            .where(where(Q.User.USERNAME, Where.Op.IS, SetupUser.ANGIE_USER_NAME))
+                            .query();
+
+                    // nothing is notified before the commit
+                    assertTrue(notifications.isEmpty());
+                    return deleted;
+                }
+            }).query();
+
+            assertEquals(1, deleted);
+            assertEquals(3, Q.User.count().query());
+            assertEquals(4, Q.Data.count().query());
+            assertEquals(1, notifications.size());
+            assertEquals(2, notifications.get(0).size());
+        } finally {
+            mProvider.removeOnTablesChangedListener(listener);
+        }
+    }
+
+    @Test
+    public void testFailingWorkIsRolledBack() {
+        try {
+            Q.transaction(mProvider, new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Q.User.delete().query();
+                    throw new IllegalStateException("rollback");
+                }
+            }).query();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("rollback", e.getMessage());
+        }
+
+        assertEquals(4, Q.User.count().query());
+    }
+
+    @Test
+    public void testFailingNestedWorkIsRolledBackToItsSavepoint() {
+        final List<Set<String>> notifications = new ArrayList<>();
+        BaseLocalDatabaseProvider.OnTablesChangedListener listener = new BaseLocalDatabaseProvider.OnTablesChangedListener() {
+            @Override
+            public void onTablesChanged(Set<String> tableNames) {
+                notifications.add(tableNames);
+            }
+        };
+        mProvider.addOnTablesChangedListener(listener);
+
+        try {
+            runTransactionWithFailingSavepoint();
+        } finally {
+            mProvider.removeOnTablesChangedListener(listener);
+        }
+
+        assertEquals(4, Q.User.count().query());
+        assertEquals(0, Q.Data.count().query());
+
+        // the rolled back savepoint is not notified
+        assertEquals(1, notifications.size());
+        assertEquals(Collections.singleton(Q.getResolver().getTableDescription(Data.class).getTableRealName()),
+                notifications.get(0));
+    }
+
+    private void runTransactionWithFailingSavepoint() {
+        Q.transaction(mProvider, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                Q.Data.delete().query();
+
+                try {
+                    Q.transaction(mProvider, new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            Q.User.delete().query();
+                            throw new IllegalStateException("rollback");
+                        }
+                    }).query();
+                    fail();
+                } catch (IllegalStateException e) {
+                    // only the nested work is rolled back
+                }
+
+                return null;
+            }
+        }).query();
+    }
+
+    @Test
+    public void testRxQueriesRunInTheCurrentTransaction() {
+        try {
+            Q.transaction(mProvider, new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Q.Data.insert(SetupData.createData("data4")).rx2().blockingFirst();
+                    assertEquals(4L, (long) Q.Data.count().rx2().blockingFirst());
+
+                    Q.transaction(mProvider, new Callable<Integer>() {
+                        @Override
+                        public Integer call() throws Exception {
+                            return Q.User.delete().query();
+                        }
+                    }).rx2().blockingFirst();
+                    throw new IllegalStateException("rollback");
+                }
+            }).query();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("rollback", e.getMessage());
+        }
+
+        assertEquals(3, Q.Data.count().query());
+        assertEquals(4, Q.User.count().query());
+    }
+
+    @Test
+    public void testRowChangesAreNotifiedOncePerTransaction() {
+        final List<List<TableChange>> notifications = new ArrayList<>();
+        BaseLocalDatabaseProvider.OnRowsChangedListener listener = new BaseLocalDatabaseProvider.OnRowsChangedListener() {
+            @Override
+            public void onRowsChanged(List<TableChange> changes) {
+                notifications.add(changes);
+            }
+        };
+        mProvider.addOnRowsChangedListener(listener);
+
+        try {
+            final Data data = SetupData.createData("data4");
+            Q.transaction(mProvider, new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Q.Data.insert(data).query();
+                    Q.User.delete()
+                            .where(where(Q.User.ID, Where.Op.IS, SetupUser.ANGIE_ID))
+                            .query();
+                    Q.User.delete()
+                            .where(where(Q.User.ID, Where.Op.IS, SetupUser.JOSH_ID))
+                            .query();
+                    Q.User.delete()
+                            .where(where(Q.User.USERNAME, Where.Op.IS, SetupUser.GILL_USER_NAME))
+                            .query();
+                    return null;
+                }
+            }).query();
+
+            assertEquals(1, notifications.size());
+            List<TableChange> changes = notifications.get(0);
+            assertEquals(3, changes.size());
+
+            assertEquals(TableChange.Type.INSERT, changes.get(0).getType());
+            assertArrayEquals(new Object[]{data.id}, changes.get(0).getPrimaryKeys());
+
+            // the deletes by primary key are merged
+            assertEquals(TableChange.Type.DELETE, changes.get(1).getType());
+            assertEquals(2, changes.get(1).getPrimaryKeys().length);
+
+            // the keys are unknown for the other conditions
+            assertNull(changes.get(2).getPrimaryKeys());
+            assertEquals(1, changes.get(2).getConditions().length);
+        } finally {
+            mProvider.removeOnRowsChangedListener(listener);
+        }
+    }
+}
@@ -152,4 +152,25 @@ public class UpdateTest extends IntegrationTest {
 
         assertEquals(updated, users.length);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSaveUpdatesExistingUsersAndInsertsNewOnes() {
+        // setup
+        User angie = SetupUser.createUser(SetupUser.ANGIE_ID, SetupUser.ANGIE_USER_NAME, 42,
+                SetupUser.ANGIE_IS_REGISTERED, SetupUser.ANGIE_RATING, SetupUser.ANGIE_COUNT, SetupUser.ANGIE_LOG_ID);
+        User newUser = SetupUser.createUser(5, "newUser", 43, false, 1.5, 1, SetupUser.ANGIE_LOG_ID);
+
+        // exercise
+        int saved = Q.User.save(angie, newUser).query();
+
+        // verify
+        assertEquals(2, saved);
+        assertEquals(5, Q.User.count().query());
+        assertEquals(42, Q.User.select()
+                .where(where(Q.User.ID, Where.Op.IS, SetupUser.ANGIE_ID))
+                .querySingle().timestamp);
+        assertEquals("newUser", Q.User.select()
+                .where(where(Q.User.ID, Where.Op.IS, 5))
+                .querySingle().username);
+    }
+}
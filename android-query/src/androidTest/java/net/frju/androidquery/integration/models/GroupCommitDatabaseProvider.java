@@ -0,0 +1,43 @@
+package net.frju.androidquery.integration.models;
+
+import android.content.Context;
+
+import net.frju.androidquery.database.BaseLocalDatabaseProvider;
+import net.frju.androidquery.database.DatabaseConfig;
+import net.frju.androidquery.database.Resolver;
+import net.frju.androidquery.gen.Q;
+
+/**
+ * A provider with its own database, whose writes can be queued for the group commit writer
+ */
+public class GroupCommitDatabaseProvider extends BaseLocalDatabaseProvider {
+
+    public static final String DB_NAME = "test_group_commit_db";
+
+    public GroupCommitDatabaseProvider(Context context) {
+        super(context);
+    }
+
+    @Override
+    protected String getDbName() {
+        return DB_NAME;
+    }
+
+    @Override
+    protected int getDbVersion() {
+        return 1;
+    }
+
+    @Override
+    protected DatabaseConfig getDatabaseConfig() {
+        return new DatabaseConfig.Builder()
+                .writeAheadLogging(true)
+                .groupCommit(20, 100)
+                .build();
+    }
+
+    @Override
+    protected Resolver getResolver() {
+        return Q.getResolver();
+    }
+}
@@ -0,0 +1,12 @@
+package net.frju.androidquery.integration.models;
+
+import net.frju.androidquery.annotation.Column;
+import net.frju.androidquery.annotation.Table;
+
+@Table(localDatabaseProvider = GroupCommitDatabaseProvider.class)
+public class QueuedData {
+    @Column(primaryKey = true, autoIncrement = true)
+    public long id;
+    @Column
+    public String name;
+}
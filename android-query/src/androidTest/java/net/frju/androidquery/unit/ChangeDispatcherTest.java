@@ -0,0 +1,95 @@
+package net.frju.androidquery.unit;
+
+import android.net.Uri;
+import android.os.SystemClock;
+
+import net.frju.androidquery.utils.ChangeDispatcher;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChangeDispatcherTest {
+
+    @Test
+    public void testChangesOfAUriAreCoalescedForAllListeners() throws Exception {
+        Uri uri = Uri.parse("content://net.frju.androidquery.test/coalesced");
+        ChangeDispatcher.setSettings(uri, 100, 1000);
+
+        final AtomicInteger addedCalls = new AtomicInteger();
+        final AtomicInteger notifierCalls = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(2);
+        ChangeDispatcher.Listener addedListener = new ChangeDispatcher.Listener() {
+            @Override
+            public void onChange(Uri uri) {
+                addedCalls.incrementAndGet();
+                latch.countDown();
+            }
+        };
+        ChangeDispatcher.Listener notifierListener = new ChangeDispatcher.Listener() {
+            @Override
+            public void onChange(Uri uri) {
+                notifierCalls.incrementAndGet();
+                latch.countDown();
+            }
+        };
+
+        ChangeDispatcher.addListener(uri, addedListener);
+        try {
+            for (int i = 0; i < 30; i++) {
+                ChangeDispatcher.notifyChange(uri, notifierListener, 1000);
+            }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+            // the listener given with a notification is not kept, and the dispatches of a URI are serialized
+            final CountDownLatch nextLatch = new CountDownLatch(1);
+            ChangeDispatcher.notifyChange(uri, new ChangeDispatcher.Listener() {
+                @Override
+                public void onChange(Uri uri) {
+                    nextLatch.countDown();
+                }
+            }, 0);
+            assertTrue(nextLatch.await(5, TimeUnit.SECONDS));
+            assertEquals(2, addedCalls.get());
+            assertEquals(1, notifierCalls.get());
+        } finally {
+            ChangeDispatcher.removeListener(uri, addedListener);
+            ChangeDispatcher.removeSettings(uri);
+        }
+    }
+
+    @Test
+    public void testDispatchesOfAUriAreSpacedByTheMinimumInterval() throws Exception {
+        Uri uri = Uri.parse("content://net.frju.androidquery.test/spaced");
+
+        final long[] callTimes = new long[2];
+        final CountDownLatch firstLatch = new CountDownLatch(1);
+        final CountDownLatch secondLatch = new CountDownLatch(1);
+        ChangeDispatcher.Listener listener = new ChangeDispatcher.Listener() {
+            @Override
+            public void onChange(Uri uri) {
+                if (firstLatch.getCount() > 0) {
+                    callTimes[0] = SystemClock.uptimeMillis();
+                    firstLatch.countDown();
+                } else {
+                    callTimes[1] = SystemClock.uptimeMillis();
+                    secondLatch.countDown();
+                }
+            }
+        };
+
+        // without settings of its own, the URI takes the interval of its notifications, even above the max latency
+        ChangeDispatcher.notifyChange(uri, listener, 1000);
+        assertTrue(firstLatch.await(5, TimeUnit.SECONDS));
+        ChangeDispatcher.notifyChange(uri, listener, 1000);
+        assertTrue(secondLatch.await(5, TimeUnit.SECONDS));
+
+        assertTrue(callTimes[1] - callTimes[0] >= 1000);
+    }
+}
@@ -155,4 +155,66 @@ public class ClauseHelperTest {
 
         assertEquals("0,1", limit);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSameShapeIsRenderedOnce() {
+        ClauseHelper clauseHelper = new ClauseHelperStub();
+
+        Condition[] samCondition = new Condition[]{in(Q.User.USERNAME, "sam", "josh")};
+        Condition[] angieCondition = new Condition[]{in(Q.User.USERNAME, "angie", "gill")};
+        Condition[] otherShapeCondition = new Condition[]{in(Q.User.USERNAME, "angie", "gill", "clyde")};
+
+        String samClause = clauseHelper.getCondition(samCondition);
+        String angieClause = clauseHelper.getCondition(angieCondition);
+        clauseHelper.getCondition(otherShapeCondition);
+        String[] angieArgs = clauseHelper.getConditionArgs(angieCondition);
+
+        assertEquals("username IN (?,?)", samClause);
+        assertEquals(samClause, angieClause);
+        assertEquals("angie", angieArgs[0]);
+        assertEquals(1, clauseHelper.getShapeCacheHitCount());
+        assertEquals(2, clauseHelper.getShapeCacheMissCount());
+    }
+
+    @Test
+    public void testPrimitiveWhereValuesAreRendered() {
+        ClauseHelper clauseHelper = new ClauseHelperStub();
+
+        Where idWhere = where(Q.User.ID, Where.Op.IS, 42L);
+        And and = and(
+                idWhere,
+                where(Q.User.IS_REGISTERED, Where.Op.IS, true),
+                where(Q.User.RATING, Where.Op.MORE_THAN, 2.5),
+                in(Q.User.IS_REGISTERED, false)
+        );
+
+        ClauseHelper.RenderedCondition rendered = clauseHelper.renderCondition(new Condition[]{and});
+        String[] args = rendered.getArgs();
+
+        assertEquals(Where.ValueType.LONG, idWhere.getValueType());
+        assertEquals(42L, idWhere.getValue());
+        assertEquals("(id IS ? AND isRegistered IS ? AND rating > ? AND isRegistered IN (?))", rendered.getSql());
+        assertEquals(4, rendered.getArgCount());
+        assertEquals("42", args[0]);
+        assertEquals("1", args[1]);
+        assertEquals("2.5", args[2]);
+        assertEquals("0", args[3]);
+    }
+
+    @Test
+    public void testCharAndBooleanStringWhereValuesKeepTheirMeaning() {
+        ClauseHelper clauseHelper = new ClauseHelperStub();
+
+        Where charWhere = where(Q.User.USERNAME, Where.Op.IS, 'a');
+        String[] args = clauseHelper.getConditionArgs(new Condition[]{
+                charWhere,
+                where(Q.User.IS_REGISTERED, Where.Op.IS, "true"),
+                where(Q.User.IS_REGISTERED, Where.Op.IS, "false")
+        });
+
+        assertEquals(Where.ValueType.OBJECT, charWhere.getValueType());
+        assertEquals("a", args[0]);
+        assertEquals("1", args[1]);
+        assertEquals("0", args[2]);
+    }
+}
@@ -0,0 +1,132 @@
+package net.frju.androidquery.unit;
+
+import net.frju.androidquery.database.ResultDiff;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultDiffTest {
+
+    @Test
+    public void testIdenticalResultsHaveAnEmptyDiff() {
+        ResultDiff.Snapshot snapshot = new ResultDiff.Snapshot(new String[]{"1", "2", "3"}, new long[]{10, 20, 30});
+
+        assertTrue(ResultDiff.compute(snapshot, snapshot).isEmpty());
+    }
+
+    @Test
+    public void testMoveGivesItsDestination() {
+        ResultDiff.Snapshot oldSnapshot = new ResultDiff.Snapshot(new String[]{"1", "2", "3"}, new long[]{10, 20, 30});
+        ResultDiff.Snapshot newSnapshot = new ResultDiff.Snapshot(new String[]{"2", "3", "1"}, new long[]{20, 30, 10});
+
+        List<ResultDiff.Operation> operations = ResultDiff.compute(oldSnapshot, newSnapshot).getOperations();
+
+        assertEquals(1, operations.size());
+        assertEquals(ResultDiff.Type.MOVE, operations.get(0).getType());
+        assertEquals(0, operations.get(0).getPosition());
+        assertEquals(1, operations.get(0).getCount());
+        assertEquals(2, operations.get(0).getToPosition());
+    }
+
+    @Test
+    public void testDiffOfRandomEditsTurnsTheOldRowsIntoTheNewOnes() {
+        Random random = new Random(42);
+
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            int nextKey = 0;
+            List<String> oldKeys = new ArrayList<>();
+            List<Long> oldHashes = new ArrayList<>();
+            int oldSize = random.nextInt(30);
+            for (int i = 0; i < oldSize; i++) {
+                oldKeys.add(Integer.toString(nextKey++));
+                oldHashes.add(random.nextLong());
+            }
+
+            // A random edit script: removals, insertions, moves and changes
+            List<String> newKeys = new ArrayList<>(oldKeys);
+            List<Long> newHashes = new ArrayList<>(oldHashes);
+            int editCount = random.nextInt(10);
+            for (int i = 0; i < editCount; i++) {
+                int operation = random.nextInt(4);
+                if (operation == 0 && !newKeys.isEmpty()) {
+                    int position = random.nextInt(newKeys.size());
+                    newKeys.remove(position);
+                    newHashes.remove(position);
+                } else if (operation == 1) {
+                    int position = random.nextInt(newKeys.size() + 1);
+                    newKeys.add(position, Integer.toString(nextKey++));
+                    newHashes.add(position, random.nextLong());
+                } else if (operation == 2 && !newKeys.isEmpty()) {
+                    int from = random.nextInt(newKeys.size());
+                    String key = newKeys.remove(from);
+                    Long hash = newHashes.remove(from);
+                    int to = random.nextInt(newKeys.size() + 1);
+                    newKeys.add(to, key);
+                    newHashes.add(to, hash);
+                } else if (operation == 3 && !newKeys.isEmpty()) {
+                    newHashes.set(random.nextInt(newKeys.size()), random.nextLong());
+                }
+            }
+
+            ResultDiff diff = ResultDiff.compute(createSnapshot(oldKeys, oldHashes), createSnapshot(newKeys, newHashes));
+
+            // Applying the operations in their order, like a RecyclerView adapter, gives the new rows
+            List<String> keys = new ArrayList<>(oldKeys);
+            List<Long> hashes = new ArrayList<>(oldHashes);
+            int removedCount = 0;
+            for (ResultDiff.Operation operation : diff.getOperations()) {
+                int position = operation.getPosition();
+                switch (operation.getType()) {
+                    case INSERT:
+                        for (int i = 0; i < operation.getCount(); i++) {
+                            keys.add(position + i, newKeys.get(position + i));
+                            hashes.add(position + i, newHashes.get(position + i));
+                        }
+                        break;
+                    case REMOVE:
+                        for (int i = 0; i < operation.getCount(); i++) {
+                            keys.remove(position);
+                            hashes.remove(position);
+                        }
+                        removedCount += operation.getCount();
+                        break;
+                    case MOVE:
+                        assertEquals(1, operation.getCount());
+                        keys.add(operation.getToPosition(), keys.remove(position));
+                        hashes.add(operation.getToPosition(), hashes.remove(position));
+                        break;
+                    case CHANGE:
+                        for (int i = 0; i < operation.getCount(); i++) {
+                            hashes.set(position + i, newHashes.get(position + i));
+                        }
+                        break;
+                }
+            }
+
+            String message = oldKeys + " -> " + newKeys + ": " + diff.getOperations();
+            assertEquals(message, newKeys, keys);
+            assertEquals(message, newHashes, hashes);
+
+            // Only the rows which are not kept are removed
+            List<String> removedKeys = new ArrayList<>(oldKeys);
+            removedKeys.removeAll(newKeys);
+            assertEquals(message, removedKeys.size(), removedCount);
+
+            assertEquals(message, oldKeys.equals(newKeys) && oldHashes.equals(newHashes), diff.isEmpty());
+        }
+    }
+
+    private static ResultDiff.Snapshot createSnapshot(List<String> keys, List<Long> hashes) {
+        long[] hashArray = new long[hashes.size()];
+        for (int i = 0; i < hashArray.length; i++) {
+            hashArray[i] = hashes.get(i);
+        }
+        return new ResultDiff.Snapshot(keys.toArray(new String[keys.size()]), hashArray);
+    }
+}
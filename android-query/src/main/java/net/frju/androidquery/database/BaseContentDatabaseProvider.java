@@ -15,11 +15,14 @@
  */
 package net.frju.androidquery.database;
 
+import android.annotation.TargetApi;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.SQLException;
 import android.net.Uri;
+import android.os.Build;
+import android.os.CancellationSignal;
 import android.provider.BaseColumns;
 
 import net.frju.androidquery.operation.condition.Condition;
@@ -67,11 +70,13 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
     protected int bulkUpdate(String tableName, ContentValues[] valuesArray, Condition[][] conditionsArray) {
         int nbUpdate = 0;
 
+        Uri uri = getUri(tableName);
         for (int i = 0; i < valuesArray.length; i++) {
-            nbUpdate += mContentResolver.update(getUri(tableName),
+            ClauseHelper.RenderedCondition renderedCondition = mClauseHelper.renderCondition(conditionsArray[i]);
+            nbUpdate += mContentResolver.update(uri,
                     valuesArray[i],
-                    mClauseHelper.getCondition(conditionsArray[i]),
-                    mClauseHelper.getConditionArgs(conditionsArray[i])
+                    renderedCondition.getSql(),
+                    renderedCondition.getArgs()
             );
         }
 
@@ -80,6 +85,14 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
 
     protected Cursor query(String tableName, String[] columns, Condition[] condition, Join[] joins,
                            String groupBy, String having, OrderBy[] orderBy, Limit limit) {
+        return query(tableName, columns, condition, joins, groupBy, having, orderBy, limit, null);
+    }
+
+    @Override
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    protected Cursor query(String tableName, String[] columns, Condition[] condition, Join[] joins,
+                           String groupBy, String having, OrderBy[] orderBy, Limit limit,
+                           CancellationSignal cancellationSignal) {
 
         if (joins != null && joins.length > 0) {
             throw new SQLException("Join condition not supported by ContentProvider");
@@ -90,25 +103,48 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
         } else if (limit != null) {
             throw new SQLException("Limit condition not supported by ContentProvider");
         } else {
+            ClauseHelper.RenderedCondition renderedCondition = mClauseHelper.renderCondition(condition);
+            if (cancellationSignal != null) { // only created on API 16+, where this method exists
+                return mContentResolver.query(
+                        getUri(tableName),
+                        columns,
+                        renderedCondition.getSql(),
+                        renderedCondition.getArgs(),
+                        mClauseHelper.getOrderBy(orderBy),
+                        cancellationSignal
+                );
+            }
             return mContentResolver.query(
                     getUri(tableName),
                     columns,
-                    mClauseHelper.getCondition(condition),
-                    mClauseHelper.getConditionArgs(condition),
+                    renderedCondition.getSql(),
+                    renderedCondition.getArgs(),
                     mClauseHelper.getOrderBy(orderBy)
             );
         }
     }
 
     protected int delete(String tableName, Condition[] condition) {
+        int inIndex = getOversizedInIndex(condition);
+        if (inIndex != -1) {
+            // A ContentResolver call cannot span a transaction, the chunks are simply deleted one after the other
+            int nbDelete = 0;
+            for (Condition[] chunk : splitOversizedIn(condition, inIndex)) {
+                nbDelete += delete(tableName, chunk);
+            }
+            return nbDelete;
+        }
+
+        ClauseHelper.RenderedCondition renderedCondition = mClauseHelper.renderCondition(condition);
         return mContentResolver.delete(
                 getUri(tableName),
-                mClauseHelper.getCondition(condition),
-                mClauseHelper.getConditionArgs(condition)
+                renderedCondition.getSql(),
+                renderedCondition.getArgs()
         );
     }
 
     protected long count(String tableName, Condition[] condition) {
+        ClauseHelper.RenderedCondition renderedCondition = mClauseHelper.renderCondition(condition);
         Cursor c = null;
 
         // First try with the SQL method
@@ -116,8 +152,8 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
             c = mContentResolver.query(
                     getUri(tableName),
                     new String[]{"COUNT(*)"},
-                    mClauseHelper.getCondition(condition),
-                    mClauseHelper.getConditionArgs(condition),
+                    renderedCondition.getSql(),
+                    renderedCondition.getArgs(),
                     null
             );
 
@@ -129,8 +165,8 @@ public abstract class BaseContentDatabaseProvider extends DatabaseProvider {
                 c = mContentResolver.query(
                         getUri(tableName),
                         new String[]{BaseColumns._COUNT},
-                        mClauseHelper.getCondition(condition),
-                        mClauseHelper.getConditionArgs(condition),
+                        renderedCondition.getSql(),
+                        renderedCondition.getArgs(),
                         null
                 );
 
@@ -15,7 +15,7 @@ import java.util.List;
 
 public abstract class BaseContentProvider extends ContentProvider {
 
-    private SQLiteDatabase mDatabase;
+    private BaseLocalDatabaseProvider mLocalProvider;
 
     @Override
     public String getType(@NonNull Uri uri) {
@@ -30,12 +30,17 @@ public abstract class BaseContentProvider extends ContentProvider {
 
     @Override
     public boolean onCreate() {
-        mDatabase = getLocalSQLProvider().getDatabase();
+        // The database itself is only opened on first access, as recommended for ContentProvider.onCreate()
+        mLocalProvider = getLocalSQLProvider();
         return true;
     }
 
     protected abstract BaseLocalDatabaseProvider getLocalSQLProvider();
 
+    private SQLiteDatabase getDatabase() {
+        return mLocalProvider.getDatabase();
+    }
+
     protected static String[] getTableRealNameAndSelection(Uri uri, String selection) {
         String tableName;
         String lastSegment = uri.getLastPathSegment();
@@ -61,7 +66,7 @@ public abstract class BaseContentProvider extends ContentProvider {
     public Cursor query(@NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
         String[] nameAndSelection = getTableRealNameAndSelection(uri, selection);
 
-        Cursor cursor = mDatabase.query(nameAndSelection[0], projection, nameAndSelection[1], selectionArgs, null, null,
+        Cursor cursor = getDatabase().query(nameAndSelection[0], projection, nameAndSelection[1], selectionArgs, null, null,
                 sortOrder, null);
 
         if (cursor != null) {
@@ -74,16 +79,17 @@ public abstract class BaseContentProvider extends ContentProvider {
     public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] valuesArray) {
         int nbInsert = 0;
 
-        mDatabase.beginTransaction();
+        SQLiteDatabase database = getDatabase();
+        database.beginTransaction();
         for (ContentValues values : valuesArray) {
-            long newId = mDatabase.insert(uri.getLastPathSegment(), null, values);
+            long newId = database.insert(uri.getLastPathSegment(), null, values);
 
             if (newId > -1) {
                 nbInsert++;
             }
         }
-        mDatabase.setTransactionSuccessful();
-        mDatabase.endTransaction();
+        database.setTransactionSuccessful();
+        database.endTransaction();
 
         getContext().getContentResolver().notifyChange(uri, null);
 
@@ -92,7 +98,7 @@ public abstract class BaseContentProvider extends ContentProvider {
 
     @Override
     public Uri insert(@NonNull Uri uri, ContentValues values) {
-        long newId = mDatabase.insert(uri.getLastPathSegment(), null, values);
+        long newId = getDatabase().insert(uri.getLastPathSegment(), null, values);
 
         if (newId > -1) {
             getContext().getContentResolver().notifyChange(uri, null);
@@ -106,7 +112,7 @@ public abstract class BaseContentProvider extends ContentProvider {
     public int update(@NonNull Uri uri, ContentValues values, String selection, String[] selectionArgs) {
         String[] nameAndSelection = getTableRealNameAndSelection(uri, selection);
 
-        int count = mDatabase.update(nameAndSelection[0], values, nameAndSelection[1], selectionArgs);
+        int count = getDatabase().update(nameAndSelection[0], values, nameAndSelection[1], selectionArgs);
         if (count > 0) {
             getContext().getContentResolver().notifyChange(uri, null);
         }
@@ -118,7 +124,7 @@ public abstract class BaseContentProvider extends ContentProvider {
     public int delete(@NonNull Uri uri, String selection, String[] selectionArgs) {
         String[] nameAndSelection = getTableRealNameAndSelection(uri, selection);
 
-        int count = mDatabase.delete(nameAndSelection[0], nameAndSelection[1], selectionArgs);
+        int count = getDatabase().delete(nameAndSelection[0], nameAndSelection[1], selectionArgs);
         if (count > 0) {
             getContext().getContentResolver().notifyChange(uri, null);
         }
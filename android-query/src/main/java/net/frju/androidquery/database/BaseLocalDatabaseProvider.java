@@ -20,31 +20,136 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.DatabaseUtils;
 import android.database.SQLException;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteQuery;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
+import android.annotation.TargetApi;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.CancellationSignal;
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
 
 import net.frju.androidquery.operation.condition.Condition;
+import net.frju.androidquery.operation.condition.In;
+import net.frju.androidquery.operation.condition.Where;
 import net.frju.androidquery.operation.join.Join;
 import net.frju.androidquery.operation.keyword.Limit;
 import net.frju.androidquery.operation.keyword.OrderBy;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author Samuel Kirton [sam@memtrip.com]
  */
 public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
 
-    private final SQLiteDatabase mDatabase;
+    /**
+     * When the database is opened, onCreate() and onUpgrade() being run at that time
+     */
+    public enum OpenMode {
+        /**
+         * Synchronously, from the provider constructor (the default)
+         */
+        EAGER,
+        /**
+         * On first use
+         */
+        LAZY,
+        /**
+         * In background, on the warm-up executor, right after the provider construction
+         */
+        BACKGROUND
+    }
+
+    /**
+     * From this number of values, an oversized In condition is matched against a temporary table rather than chunked
+     */
+    private static final int MIN_TEMP_TABLE_IN_VALUES = 10 * MAX_IN_VALUES;
+    private static final String IN_VALUES_TEMP_TABLE = "temp.androidquery_in_values";
+
+    private static final int MIN_UPSERT_SQLITE_VERSION = 3024000; // 3.24.0
+    private static final String SAVEPOINT_NAME = "androidquery_savepoint";
+
+    /**
+     * Notified of the tables modified by the provider, once the modifications are committed
+     */
+    public interface OnTablesChangedListener {
+        /**
+         * Called on the thread which did the modifications, right after their commit
+         *
+         * @param tableNames The real names of the modified tables
+         */
+        void onTablesChanged(@NonNull Set<String> tableNames);
+    }
+
+    /**
+     * Notified of the rows modified by the Insert, Update, Delete and Save queries of the provider, once committed
+     */
+    public interface OnRowsChangedListener {
+        /**
+         * Called on the thread which did the modifications, right after their commit, once per transaction
+         *
+         * @param changes The changes of the transaction, in their order
+         */
+        void onRowsChanged(@NonNull List<TableChange> changes);
+    }
+
+    private static final class TransactionState {
+        // Only added to, so a savepoint can be rolled back by truncating both
+        private final Set<String> mChangedTables = new LinkedHashSet<>();
+        private final List<TableChange> mChanges = new ArrayList<>();
+        private boolean mIsSuccessful;
+    }
+
+    private final Callable<SQLiteDatabase> mOpenCallable;
+    private final AtomicReference<FutureTask<SQLiteDatabase>> mOpenTask = new AtomicReference<>();
+    private final DatabaseConfig mDatabaseConfig;
+    private final GroupCommitWriter mGroupCommitWriter;
+    private volatile Boolean mIsUpsertSupported;
+    private volatile File mWalFile;
+    private volatile long mBackgroundCheckpointWalSize;
+    private final AtomicBoolean mIsCheckpointScheduled = new AtomicBoolean();
+    private final CopyOnWriteArrayList<OnTablesChangedListener> mOnTablesChangedListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<OnRowsChangedListener> mOnRowsChangedListeners = new CopyOnWriteArrayList<>();
+    // The transactions begun by this provider, which are confined to the thread which began them
+    private final ThreadLocal<TransactionState> mTransactionState = new ThreadLocal<>();
     private final String[] mSchemaArray;
     private final String[][] mColumnsSqlArray;
     private final String[] mTableRealNameArray;
+    private final Map<String, TableDescription> mTableDescriptions = new HashMap<>();
     private final String[] mCreateIndexQuery;
     private final List<String> mIndexNames;
 
     public BaseLocalDatabaseProvider(Context context) {
+        this(context, OpenMode.EAGER);
+    }
+
+    /**
+     * @param openMode The moment when the database is opened: pass {@link OpenMode#LAZY} or {@link OpenMode#BACKGROUND}
+     *                 to not open it while the provider is created, which is usually in Application.onCreate()
+     */
+    public BaseLocalDatabaseProvider(Context context, @NonNull OpenMode openMode) {
 
         Class<?> modelClassDef[] = getResolver().getModelsForProvider(this.getClass());
         int modelCount = modelClassDef.length;
@@ -60,12 +165,13 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
             mSchemaArray[i] = tableDescription.getTableCreateQuery();
             mColumnsSqlArray[i] = tableDescription.getColumnsSqlArray();
             mTableRealNameArray[i] = tableDescription.getTableRealName();
+            mTableDescriptions.put(tableDescription.getTableRealName(), tableDescription);
             mCreateIndexQuery[i] = tableDescription.getCreateIndexQuery();
 
             Collections.addAll(mIndexNames, tableDescription.getIndexNames());
         }
 
-        SQLiteOpenHelper openHelper = new SQLiteOpenHelper(context, getDbName(), null, getDbVersion()) {
+        final SQLiteOpenHelper openHelper = new SQLiteOpenHelper(context, getDbName(), null, getDbVersion()) {
             @Override
             public void onCreate(SQLiteDatabase db) {
                 BaseLocalDatabaseProvider.this.onCreate(db);
@@ -77,8 +183,90 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
             }
         };
 
+        mDatabaseConfig = getDatabaseConfig();
+        mGroupCommitWriter = mDatabaseConfig.isGroupCommitEnabled()
+                ? new GroupCommitWriter(this, mDatabaseConfig.getGroupCommitMaxLatency(), mDatabaseConfig.getGroupCommitMaxBatchSize())
+                : null;
+
         //TODO should handle error cases and notably the corrupted database one: we could reconstruct it
-        mDatabase = openHelper.getWritableDatabase();
+        mOpenCallable = new Callable<SQLiteDatabase>() {
+            @Override
+            public SQLiteDatabase call() throws Exception {
+                SQLiteDatabase database = openHelper.getWritableDatabase();
+                configure(database, mDatabaseConfig);
+                return database;
+            }
+        };
+        mOpenTask.set(new FutureTask<>(mOpenCallable));
+
+        switch (openMode) {
+            case EAGER:
+                // rethrows the failure of the opening, like onCreate() or onUpgrade() ones
+                getDatabase();
+                break;
+            case BACKGROUND:
+                getWarmUpExecutor().execute(mOpenTask.get());
+                break;
+        }
+    }
+
+    /**
+     * @return The executor opening the database in {@link OpenMode#BACKGROUND} mode, and running the background
+     * checkpoints of the write-ahead log
+     */
+    protected Executor getWarmUpExecutor() {
+        return AsyncTask.THREAD_POOL_EXECUTOR;
+    }
+
+    /**
+     * Override it to enable the write-ahead logging or tune the journal, see {@link DatabaseConfig.Builder}. It is applied
+     * when the database is opened, after onCreate() or onUpgrade().
+     *
+     * @return The SQLite configuration of the database, {@link DatabaseConfig#DEFAULT} by default
+     */
+    protected DatabaseConfig getDatabaseConfig() {
+        return DatabaseConfig.DEFAULT;
+    }
+
+    private void configure(SQLiteDatabase database, DatabaseConfig config) {
+        if (config.getMaxSqlCacheSize() > 0) {
+            database.setMaxSqlCacheSize(config.getMaxSqlCacheSize());
+        }
+
+        // Android uses a pool of read connections once enabled, its size being defined by the system
+        boolean isWriteAheadLoggingEnabled = config.isWriteAheadLoggingEnabled() && database.enableWriteAheadLogging();
+        if (!isWriteAheadLoggingEnabled && config.getJournalMode() != null) {
+            DatabaseUtils.stringForQuery(database, "PRAGMA journal_mode=" + config.getJournalMode().name(), null);
+        }
+
+        // Both only matter for the primary connection, which is the only one to write
+        if (config.getSynchronousMode() != null) {
+            database.execSQL("PRAGMA synchronous=" + config.getSynchronousMode().name());
+        }
+        if (isWriteAheadLoggingEnabled && config.getBackgroundCheckpointWalSize() > 0) {
+            DatabaseUtils.longForQuery(database, "PRAGMA wal_autocheckpoint=0", null);
+            mBackgroundCheckpointWalSize = config.getBackgroundCheckpointWalSize();
+            mWalFile = new File(database.getPath() + "-wal");
+        }
+    }
+
+    private void scheduleCheckpointIfNeeded() {
+        if (mWalFile != null && mWalFile.length() >= mBackgroundCheckpointWalSize
+                && mIsCheckpointScheduled.compareAndSet(false, true)) {
+            getWarmUpExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        // A passive checkpoint never waits for the readers, it will resume after the next commits if needed
+                        DatabaseUtils.longForQuery(getDatabase(), "PRAGMA wal_checkpoint(PASSIVE)", null);
+                    } catch (SQLException e) {
+                        // retried after the next commit
+                    } finally {
+                        mIsCheckpointScheduled.set(false);
+                    }
+                }
+            });
+        }
     }
 
     protected abstract String getDbName();
@@ -116,47 +304,503 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
         }
     }
 
+    /**
+     * Run the work in a single transaction, including all the queries it runs on this provider, which is committed only
+     * if the work returns without throwing. When called from another transaction of this provider, it uses a savepoint:
+     * a failing work is rolled back on its own, letting the caller decide what to do with the outer transaction.
+     * <p>
+     * The {@link OnTablesChangedListener} and {@link OnRowsChangedListener} are notified only once the outer transaction is
+     * committed, and never of the modifications of a rolled back savepoint.
+     *
+     * @param work The work to run, on the calling thread
+     * @return The result of the work
+     * @throws IllegalStateException If called from a transaction not begun by this provider
+     * @throws RuntimeException      The exception thrown by the work, checked exceptions being wrapped
+     */
+    public <T> T runInTransaction(@NonNull Callable<T> work) {
+        SQLiteDatabase database = getWriteDatabase();
+
+        boolean isOwnTransaction = beginOperationTransaction(database);
+        TransactionState transactionState = mTransactionState.get();
+        int savepointChangedTableCount = transactionState.mChangedTables.size();
+        int savepointChangeCount = transactionState.mChanges.size();
+        if (!isOwnTransaction) {
+            database.execSQL("SAVEPOINT " + SAVEPOINT_NAME); // names can be reused, SQLite uses the innermost one
+        }
+
+        boolean isSuccessful = false;
+        try {
+            T result = work.call();
+            isSuccessful = true;
+            return result;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (isOwnTransaction) {
+                if (isSuccessful) {
+                    setOperationTransactionSuccessful(database, true);
+                }
+                endOperationTransaction(database, true);
+            } else {
+                if (!isSuccessful) {
+                    // the leading comment prevents Android from taking it for the end of its own transaction
+                    database.execSQL("/* savepoint */ ROLLBACK TO " + SAVEPOINT_NAME);
+                    // nothing of the savepoint is notified, the tables and rows being back to their previous state
+                    transactionState.mChanges.subList(savepointChangeCount, transactionState.mChanges.size()).clear();
+                    Iterator<String> changedTables = transactionState.mChangedTables.iterator();
+                    for (int i = 0; changedTables.hasNext(); i++) {
+                        changedTables.next();
+                        if (i >= savepointChangedTableCount) {
+                            changedTables.remove();
+                        }
+                    }
+                }
+                database.execSQL("RELEASE " + SAVEPOINT_NAME);
+            }
+        }
+    }
+
+    /**
+     * Queue a write for the group commit writer, which runs it with other queued writes in a single transaction. A
+     * failing write is rolled back on its own, without preventing the other ones to be committed.
+     * <p>
+     * Waiting for the result from a transaction of this provider would block forever, the writer needing the database.
+     *
+     * @param write The write, run on the writer thread
+     * @return The result of the write, available once it has been committed
+     * @throws IllegalStateException If the group commit is not enabled by {@link #getDatabaseConfig()}
+     */
+    public
+    @NonNull
+    <T> Future<T> enqueueWrite(@NonNull Callable<T> write) {
+        return enqueueWrite(write, null);
+    }
+
+    /**
+     * Queue a write for the group commit writer, see {@link #enqueueWrite(Callable)}
+     *
+     * @param callback Called on the writer thread once the write is committed or has failed, can be null
+     */
+    public
+    @NonNull
+    <T> Future<T> enqueueWrite(@NonNull Callable<T> write, QueryCallback<T> callback) {
+        if (mGroupCommitWriter == null) {
+            throw new IllegalStateException("queued writes require DatabaseConfig.Builder#groupCommit()");
+        }
+
+        return mGroupCommitWriter.enqueue(write, callback);
+    }
+
+    public void addOnTablesChangedListener(@NonNull OnTablesChangedListener listener) {
+        mOnTablesChangedListeners.add(listener);
+    }
+
+    public void removeOnTablesChangedListener(@NonNull OnTablesChangedListener listener) {
+        mOnTablesChangedListeners.remove(listener);
+    }
+
+    public void addOnRowsChangedListener(@NonNull OnRowsChangedListener listener) {
+        mOnRowsChangedListeners.add(listener);
+    }
+
+    public void removeOnRowsChangedListener(@NonNull OnRowsChangedListener listener) {
+        mOnRowsChangedListeners.remove(listener);
+    }
+
+    /**
+     * Notify the listeners that a table has been modified, or wait for the commit when called within a transaction
+     *
+     * @param tableName The real name of the modified table
+     */
+    protected void notifyTableChanged(@NonNull String tableName) {
+        TransactionState transactionState = mTransactionState.get();
+        if (transactionState != null) {
+            transactionState.mChangedTables.add(tableName);
+        } else {
+            dispatchChanges(Collections.singleton(tableName), Collections.<TableChange>emptyList());
+        }
+    }
+
+    private void notifyRowsChanged(TableChange change) {
+        TransactionState transactionState = mTransactionState.get();
+        if (transactionState != null) {
+            transactionState.mChangedTables.add(change.getTableName());
+            transactionState.mChanges.add(change);
+        } else {
+            dispatchChanges(Collections.singleton(change.getTableName()), Collections.singletonList(change));
+        }
+    }
+
+    private void dispatchChanges(Set<String> tableNames, List<TableChange> changes) {
+        if (!tableNames.isEmpty()) {
+            scheduleCheckpointIfNeeded();
+
+            Set<String> unmodifiableTableNames = Collections.unmodifiableSet(tableNames);
+            for (OnTablesChangedListener listener : mOnTablesChangedListeners) {
+                listener.onTablesChanged(unmodifiableTableNames);
+            }
+        }
+
+        if (!changes.isEmpty() && !mOnRowsChangedListeners.isEmpty()) {
+            List<TableChange> compactChanges = Collections.unmodifiableList(TableChange.compact(changes));
+            for (OnRowsChangedListener listener : mOnRowsChangedListeners) {
+                listener.onRowsChanged(compactChanges);
+            }
+        }
+    }
+
+    /**
+     * @return The change of the rows matched by the conditions, which are identified by their primary keys when the
+     * conditions only target some primary keys
+     */
+    private TableChange newTableChange(String tableName, TableChange.Type type, Condition[] condition) {
+        TableDescription tableDescription = mTableDescriptions.get(tableName);
+        String primaryKeyName = tableDescription != null ? tableDescription.getPrimaryKeyRealName() : null;
+
+        if (!TextUtils.isEmpty(primaryKeyName) && condition != null && condition.length == 1) {
+            if (condition[0] instanceof In && primaryKeyName.equals(((In) condition[0]).getColumn())) {
+                return new TableChange(tableName, type, ((In) condition[0]).getValues(), null);
+            }
+            if (condition[0] instanceof Where) {
+                Where where = (Where) condition[0];
+                if (where.getOperator() == Where.Op.IS && primaryKeyName.equals(where.getColumn())
+                        && where.getValue() != null) {
+                    return new TableChange(tableName, type, new Object[]{where.getValue()}, null);
+                }
+            }
+        }
+
+        return new TableChange(tableName, type, null, condition != null && condition.length > 0 ? condition : null);
+    }
+
+    /**
+     * @return The primary key of an inserted row, or null if unknown
+     */
+    private Object getInsertedPrimaryKey(String tableName, ContentValues values, long newId) {
+        TableDescription tableDescription = mTableDescriptions.get(tableName);
+        if (tableDescription == null || TextUtils.isEmpty(tableDescription.getPrimaryKeyRealName())) {
+            return null;
+        }
+
+        Object primaryKey = values.get(tableDescription.getPrimaryKeyRealName());
+        if (primaryKey == null && tableDescription.isPrimaryKeyAutoIncrement()) {
+            // an autoincrement key is an alias of the rowid
+            primaryKey = newId;
+        }
+        return primaryKey;
+    }
+
+    /**
+     * Begin the transaction of an operation, unless it is already part of a bigger one which then owns the commit or the
+     * rollback. Android would otherwise roll back the whole outer transaction if this one fails, even if the failure
+     * has been handled by a savepoint.
+     *
+     * @return Whether the transaction has been begun by this call
+     */
+    private boolean beginOperationTransaction(SQLiteDatabase database) {
+        if (database.inTransaction()) {
+            return false;
+        }
+
+        database.beginTransaction();
+        mTransactionState.set(new TransactionState());
+        return true;
+    }
+
+    private void setOperationTransactionSuccessful(SQLiteDatabase database, boolean isOwnTransaction) {
+        if (isOwnTransaction) {
+            database.setTransactionSuccessful();
+            mTransactionState.get().mIsSuccessful = true;
+        }
+    }
+
+    private void endOperationTransaction(SQLiteDatabase database, boolean isOwnTransaction) {
+        if (isOwnTransaction) {
+            TransactionState transactionState = mTransactionState.get();
+            mTransactionState.remove();
+
+            database.endTransaction();
+            if (transactionState.mIsSuccessful) {
+                dispatchChanges(transactionState.mChangedTables, transactionState.mChanges);
+            }
+        }
+    }
+
     protected long insert(String tableName, ContentValues values) {
-        return mDatabase.insert(tableName, null, values);
+        long newId = getWriteDatabase().insert(tableName, null, values);
+        if (newId != -1) {
+            Object primaryKey = getInsertedPrimaryKey(tableName, values, newId);
+            notifyRowsChanged(new TableChange(tableName, TableChange.Type.INSERT,
+                    primaryKey != null ? new Object[]{primaryKey} : null, null));
+        }
+        return newId;
     }
 
     protected int bulkInsert(String tableName, ContentValues[] valuesArray) {
+        SQLiteDatabase database = getWriteDatabase();
+
         int nbInsert = 0;
-        mDatabase.beginTransaction();
+        boolean isOwnTransaction = beginOperationTransaction(database);
 
-        for (ContentValues values : valuesArray) {
-            if (mDatabase.insert(tableName, null, values) != -1) {
-                nbInsert++;
+        try {
+            List<Object> primaryKeys = new ArrayList<>(valuesArray.length);
+            for (ContentValues values : valuesArray) {
+                long newId = database.insert(tableName, null, values);
+                if (newId != -1) {
+                    nbInsert++;
+                    Object primaryKey = primaryKeys != null ? getInsertedPrimaryKey(tableName, values, newId) : null;
+                    if (primaryKey != null) {
+                        primaryKeys.add(primaryKey);
+                    } else {
+                        primaryKeys = null; // unknown for one row, so for the whole change
+                    }
+                }
+            }
+
+            if (nbInsert > 0) {
+                notifyRowsChanged(new TableChange(tableName, TableChange.Type.INSERT,
+                        primaryKeys != null ? primaryKeys.toArray() : null, null));
             }
+
+            setOperationTransactionSuccessful(database, isOwnTransaction);
+        } finally {
+            endOperationTransaction(database, isOwnTransaction);
         }
 
-        mDatabase.setTransactionSuccessful();
-        mDatabase.endTransaction();
+        return nbInsert;
+    }
+
+    @Override
+    protected int bulkInsert(TableDescription tableDescription, Object[] models) {
+        SQLiteDatabase database = getWriteDatabase();
+
+        int nbInsert = 0;
+        boolean isOwnTransaction = beginOperationTransaction(database);
+        boolean hasPrimaryKey = !TextUtils.isEmpty(tableDescription.getPrimaryKeyRealName());
+
+        SQLiteStatement statement = null;
+        try {
+            // Compiled once and reused for every model, instead of letting SQLiteDatabase.insert() recompile it each time
+            statement = database.compileStatement(tableDescription.getInsertQuery());
+
+            List<Object> primaryKeys = new ArrayList<>(models.length);
+            for (Object model : models) {
+                statement.clearBindings();
+                tableDescription.bindInsert(statement, model);
+
+                long newId;
+                try {
+                    newId = statement.executeInsert();
+                } catch (SQLException e) {
+                    // Same behavior than SQLiteDatabase.insert(): the failing row is skipped
+                    newId = -1;
+                }
+
+                if (newId != -1) {
+                    tableDescription.setIdToModel(model, newId);
+                    nbInsert++;
+                    primaryKeys.add(tableDescription.getPrimaryKeyValue(model));
+                }
+            }
+
+            if (nbInsert > 0) {
+                notifyRowsChanged(new TableChange(tableDescription.getTableRealName(), TableChange.Type.INSERT,
+                        hasPrimaryKey ? primaryKeys.toArray() : null, null));
+            }
+
+            setOperationTransactionSuccessful(database, isOwnTransaction);
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+            endOperationTransaction(database, isOwnTransaction);
+        }
 
         return nbInsert;
     }
 
+    @Override
+    protected int bulkSave(TableDescription tableDescription, Object[] models) {
+        SQLiteDatabase database = getWriteDatabase();
+
+        int nbSave;
+        boolean isOwnTransaction = beginOperationTransaction(database);
+
+        try {
+            String upsertQuery = tableDescription.getUpsertQuery();
+            // The listeners need to know if each model is inserted or updated, which an upsert does not tell
+            if (upsertQuery != null && isUpsertSupported(database) && !hasModelListener(models)) {
+                nbSave = upsert(database, upsertQuery, tableDescription, models);
+            } else {
+                nbSave = super.bulkSave(tableDescription, models);
+            }
+
+            setOperationTransactionSuccessful(database, isOwnTransaction);
+        } finally {
+            endOperationTransaction(database, isOwnTransaction);
+        }
+
+        return nbSave;
+    }
+
+    private int upsert(SQLiteDatabase database, String upsertQuery, TableDescription tableDescription, Object[] models) {
+        int nbSave = 0;
+        List<Object> primaryKeys = new ArrayList<>(models.length);
+
+        SQLiteStatement statement = database.compileStatement(upsertQuery);
+        try {
+            for (Object model : models) {
+                statement.clearBindings();
+                tableDescription.bindInsert(statement, model);
+
+                try {
+                    if (statement.executeInsert() != -1) {
+                        nbSave++;
+                        primaryKeys.add(tableDescription.getPrimaryKeyValue(model));
+                    }
+                } catch (SQLException e) {
+                    // Same behavior than bulkInsert(): the failing row is skipped
+                }
+            }
+        } finally {
+            statement.close();
+        }
+
+        if (nbSave > 0) {
+            notifyRowsChanged(new TableChange(tableDescription.getTableRealName(), TableChange.Type.SAVE,
+                    primaryKeys.toArray(), null));
+        }
+
+        return nbSave;
+    }
+
+    private boolean isUpsertSupported(SQLiteDatabase database) {
+        if (mIsUpsertSupported == null) {
+            String[] version = DatabaseUtils.stringForQuery(database, "SELECT sqlite_version()", null).split("\\.");
+            int versionNumber = 0;
+            for (int i = 0; i < 3; i++) {
+                versionNumber = versionNumber * 1000 + (i < version.length ? Integer.parseInt(version[i]) : 0);
+            }
+            mIsUpsertSupported = versionNumber >= MIN_UPSERT_SQLITE_VERSION;
+        }
+
+        return mIsUpsertSupported;
+    }
+
+    private static boolean hasModelListener(Object[] models) {
+        for (Object model : models) {
+            if (model instanceof ModelListener) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected int bulkUpdate(String tableName, ContentValues[] valuesArray, Condition[][] conditionsArray) {
+        SQLiteDatabase database = getWriteDatabase();
+
         int nbUpdate = 0;
-        mDatabase.beginTransaction();
+        boolean isOwnTransaction = beginOperationTransaction(database);
 
-        for (int i = 0; i < valuesArray.length; i++) {
-            nbUpdate += mDatabase.update(
-                    tableName,
-                    valuesArray[i],
-                    mClauseHelper.getCondition(conditionsArray[i]),
-                    mClauseHelper.getConditionArgs(conditionsArray[i])
-            );
+        try {
+            for (int i = 0; i < valuesArray.length; i++) {
+                ContentValues values = valuesArray[i];
+                if (values == null || values.size() == 0) {
+                    throw new IllegalArgumentException("Empty values");
+                }
+
+                StringBuilder sql = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+                Object[] valueArgs = new Object[values.size()];
+                int valueIndex = 0;
+                for (Map.Entry<String, Object> entry : values.valueSet()) {
+                    if (valueIndex > 0) {
+                        sql.append(',');
+                    }
+                    sql.append(entry.getKey()).append("=?");
+                    valueArgs[valueIndex++] = entry.getValue();
+                }
+
+                ClauseHelper.RenderedCondition renderedCondition = mClauseHelper.renderCondition(conditionsArray[i]);
+                SQLiteStatement statement = database.compileStatement(appendWhere(sql, renderedCondition));
+                try {
+                    for (int j = 0; j < valueArgs.length; j++) {
+                        DatabaseUtils.bindObjectToProgram(statement, j + 1, valueArgs[j]);
+                    }
+                    renderedCondition.bindArgs(statement, valueArgs.length + 1);
+                    int nbRowUpdate = statement.executeUpdateDelete();
+                    if (nbRowUpdate > 0) {
+                        nbUpdate += nbRowUpdate;
+                        notifyRowsChanged(newTableChange(tableName, TableChange.Type.UPDATE, conditionsArray[i]));
+                    }
+                } finally {
+                    statement.close();
+                }
+            }
+
+            setOperationTransactionSuccessful(database, isOwnTransaction);
+        } finally {
+            endOperationTransaction(database, isOwnTransaction);
         }
 
-        mDatabase.setTransactionSuccessful();
-        mDatabase.endTransaction();
+        return nbUpdate;
+    }
+
+    @Override
+    protected int bulkUpdate(TableDescription tableDescription, Object[] models) {
+        SQLiteDatabase database = getWriteDatabase();
+
+        String updateQuery = tableDescription.getUpdateByPrimaryKeyQuery();
+        if (updateQuery == null) {
+            return super.bulkUpdate(tableDescription, models);
+        }
+
+        int nbUpdate = 0;
+        boolean isOwnTransaction = beginOperationTransaction(database);
+
+        SQLiteStatement statement = null;
+        try {
+            // Compiled once and reused for every model, instead of letting SQLiteDatabase.update() recompile it each time
+            statement = database.compileStatement(updateQuery);
+
+            List<Object> primaryKeys = new ArrayList<>(models.length);
+            for (Object model : models) {
+                statement.clearBindings();
+                tableDescription.bindUpdateByPrimaryKey(statement, model);
+                int nbRowUpdate = statement.executeUpdateDelete();
+                if (nbRowUpdate > 0) {
+                    nbUpdate += nbRowUpdate;
+                    primaryKeys.add(tableDescription.getPrimaryKeyValue(model));
+                }
+            }
+
+            if (nbUpdate > 0) {
+                notifyRowsChanged(new TableChange(tableDescription.getTableRealName(), TableChange.Type.UPDATE,
+                        primaryKeys.toArray(), null));
+            }
+
+            setOperationTransactionSuccessful(database, isOwnTransaction);
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+            endOperationTransaction(database, isOwnTransaction);
+        }
 
         return nbUpdate;
     }
 
     protected Cursor query(String tableName, String[] columns, Condition[] condition, Join[] joins,
                            String groupBy, String having, OrderBy[] orderBy, Limit limit) {
+        return query(tableName, columns, condition, joins, groupBy, having, orderBy, limit, null);
+    }
+
+    @Override
+    protected Cursor query(String tableName, String[] columns, Condition[] condition, Join[] joins,
+                           String groupBy, String having, OrderBy[] orderBy, Limit limit,
+                           CancellationSignal cancellationSignal) {
+        SQLiteDatabase database = getDatabase();
 
         if (joins != null && joins.length > 0) {
             try {
@@ -170,46 +814,212 @@ public abstract class BaseLocalDatabaseProvider extends DatabaseProvider {
                         getResolver()
                 );
 
-                return mDatabase.rawQuery(joinQuery, mClauseHelper.getConditionArgs(condition));
-            } catch (Exception e) {
+                return rawQueryWithFactory(database, new BindingCursorFactory(mClauseHelper.renderCondition(condition)),
+                        joinQuery, null, cancellationSignal);
+            } catch (RuntimeException e) {
+                // A cancellation is rethrown as is, without catching OperationCanceledException which is only in API 16+
+                if (cancellationSignal != null && cancellationSignal.isCanceled()) {
+                    throw e;
+                }
                 throw new SQLException(e.getMessage());
             }
         } else {
-            return mDatabase.query(
+            ClauseHelper.RenderedCondition renderedCondition = mClauseHelper.renderCondition(condition);
+            String sql = SQLiteQueryBuilder.buildQueryString(
+                    false,
                     tableName,
                     columns,
-                    mClauseHelper.getCondition(condition),
-                    mClauseHelper.getConditionArgs(condition),
+                    renderedCondition.getSql(),
                     groupBy,
                     having,
                     mClauseHelper.getOrderBy(orderBy),
                     mClauseHelper.getLimit(limit)
             );
+
+            return rawQueryWithFactory(database, new BindingCursorFactory(renderedCondition), sql, tableName,
+                    cancellationSignal);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static Cursor rawQueryWithFactory(SQLiteDatabase database, SQLiteDatabase.CursorFactory cursorFactory,
+                                              String sql, String editTable, CancellationSignal cancellationSignal) {
+        // A signal is only created on API 16+, where this method exists
+        if (cancellationSignal != null) {
+            return database.rawQueryWithFactory(cursorFactory, sql, null, editTable, cancellationSignal);
         }
+        return database.rawQueryWithFactory(cursorFactory, sql, null, editTable);
     }
 
     protected int delete(String tableName, Condition[] condition) {
-        return mDatabase.delete(
-                tableName,
-                mClauseHelper.getCondition(condition),
-                mClauseHelper.getConditionArgs(condition)
-        );
+        int inIndex = getOversizedInIndex(condition);
+        if (inIndex != -1) {
+            SQLiteDatabase database = getWriteDatabase();
+
+            int nbDelete = 0;
+            boolean isOwnTransaction = beginOperationTransaction(database);
+
+            try {
+                if (((In) condition[inIndex]).getValues().length >= MIN_TEMP_TABLE_IN_VALUES) {
+                    nbDelete = deleteWithTempTable(database, tableName, condition, inIndex);
+                    if (nbDelete > 0) {
+                        notifyRowsChanged(newTableChange(tableName, TableChange.Type.DELETE, condition));
+                    }
+                } else {
+                    // each chunk notifies its own change
+                    for (Condition[] chunk : splitOversizedIn(condition, inIndex)) {
+                        nbDelete += delete(tableName, chunk);
+                    }
+                }
+
+                setOperationTransactionSuccessful(database, isOwnTransaction);
+            } finally {
+                endOperationTransaction(database, isOwnTransaction);
+            }
+
+            return nbDelete;
+        }
+
+        ClauseHelper.RenderedCondition renderedCondition = mClauseHelper.renderCondition(condition);
+        StringBuilder sql = new StringBuilder("DELETE FROM ").append(tableName);
+
+        SQLiteStatement statement = getWriteDatabase().compileStatement(appendWhere(sql, renderedCondition));
+        int nbDelete;
+        try {
+            renderedCondition.bindArgs(statement, 1);
+            nbDelete = statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+
+        if (nbDelete > 0) {
+            notifyRowsChanged(newTableChange(tableName, TableChange.Type.DELETE, condition));
+        }
+
+        return nbDelete;
+    }
+
+    /**
+     * Delete with a very large In condition: its values are inserted into a temporary table which is then used as a
+     * sub-query, instead of having SQLite parse and plan thousands of variables. Must be called within a transaction,
+     * as temporary tables only exist on the connection that created them.
+     */
+    private int deleteWithTempTable(SQLiteDatabase database, String tableName, Condition[] condition, int inIndex) {
+        In in = (In) condition[inIndex];
+
+        database.execSQL("CREATE TABLE IF NOT EXISTS " + IN_VALUES_TEMP_TABLE + " (value)");
+        try {
+            SQLiteStatement insertStatement = database.compileStatement("INSERT INTO " + IN_VALUES_TEMP_TABLE + " VALUES (?)");
+            try {
+                for (Object value : in.getValues()) {
+                    DatabaseUtils.bindObjectToProgram(insertStatement, 1, value);
+                    insertStatement.executeInsert();
+                }
+            } finally {
+                insertStatement.close();
+            }
+
+            Condition[] otherConditions = new Condition[condition.length - 1];
+            System.arraycopy(condition, 0, otherConditions, 0, inIndex);
+            System.arraycopy(condition, inIndex + 1, otherConditions, inIndex, otherConditions.length - inIndex);
+            ClauseHelper.RenderedCondition renderedCondition = mClauseHelper.renderCondition(otherConditions);
+
+            StringBuilder sql = new StringBuilder("DELETE FROM ").append(tableName)
+                    .append(" WHERE ").append(in.getColumn())
+                    .append(" IN (SELECT value FROM ").append(IN_VALUES_TEMP_TABLE).append(")");
+            if (renderedCondition.getSql().length() > 0) {
+                sql.append(" AND ").append(renderedCondition.getSql());
+            }
+
+            SQLiteStatement statement = database.compileStatement(sql.toString());
+            try {
+                renderedCondition.bindArgs(statement, 1);
+                return statement.executeUpdateDelete();
+            } finally {
+                statement.close();
+            }
+        } finally {
+            database.execSQL("DELETE FROM " + IN_VALUES_TEMP_TABLE);
+        }
     }
 
     protected long count(String tableName, Condition[] condition) {
-        return DatabaseUtils.queryNumEntries(
-                mDatabase,
-                tableName,
-                mClauseHelper.getCondition(condition),
-                mClauseHelper.getConditionArgs(condition)
-        );
+        ClauseHelper.RenderedCondition renderedCondition = mClauseHelper.renderCondition(condition);
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM ").append(tableName);
+
+        SQLiteStatement statement = getDatabase().compileStatement(appendWhere(sql, renderedCondition));
+        try {
+            renderedCondition.bindArgs(statement, 1);
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
     }
 
     protected Cursor rawQuery(String sql) {
-        return mDatabase.rawQuery(sql, null);
+        return getDatabase().rawQuery(sql, null);
     }
 
+    private static String appendWhere(StringBuilder sql, ClauseHelper.RenderedCondition renderedCondition) {
+        if (renderedCondition.getSql().length() > 0) {
+            sql.append(" WHERE ").append(renderedCondition.getSql());
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Bind the condition arguments with their own type, SQLiteDatabase.query() only accepting strings
+     */
+    private static final class BindingCursorFactory implements SQLiteDatabase.CursorFactory {
+        private final ClauseHelper.RenderedCondition mRenderedCondition;
+
+        BindingCursorFactory(ClauseHelper.RenderedCondition renderedCondition) {
+            mRenderedCondition = renderedCondition;
+        }
+
+        @Override
+        public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery, String editTable, SQLiteQuery query) {
+            mRenderedCondition.bindArgs(query, 1);
+            return new SQLiteCursor(masterQuery, editTable, query);
+        }
+    }
+
+    /**
+     * Get the database to modify it, see {@link #getDatabase()}
+     *
+     * @throws IllegalStateException If the calling thread is in a transaction not begun by this provider, whose commit
+     *                               could not be followed to notify the listeners
+     */
+    private SQLiteDatabase getWriteDatabase() {
+        SQLiteDatabase database = getDatabase();
+        if (mTransactionState.get() == null && database.inTransaction()) {
+            throw new IllegalStateException("cannot write in a transaction not begun by the provider, use runInTransaction()");
+        }
+        return database;
+    }
+
+    /**
+     * Get the database, opening it first if needed. If it is currently being opened by another thread, wait for it.
+     *
+     * @return The opened database
+     */
     SQLiteDatabase getDatabase() {
-        return mDatabase;
+        FutureTask<SQLiteDatabase> openTask = mOpenTask.get();
+        openTask.run(); // does nothing if the database has already been opened or is being opened
+
+        try {
+            return openTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the database to be opened");
+        } catch (ExecutionException e) {
+            // The failure can be transient (like a full disk), the next call will try again
+            mOpenTask.compareAndSet(openTask, new FutureTask<>(mOpenCallable));
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SQLException("Cannot open the database: " + e.getCause());
+        }
     }
 }
\ No newline at end of file
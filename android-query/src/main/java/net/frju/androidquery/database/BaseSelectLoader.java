@@ -1,33 +1,165 @@
 package net.frju.androidquery.database;
 
+import android.annotation.TargetApi;
 import android.content.AsyncTaskLoader;
 import android.content.Context;
-import android.content.Loader;
+import android.net.Uri;
+import android.os.Build;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.OperationCanceledException;
 
 import net.frju.androidquery.operation.function.CursorResult;
+import net.frju.androidquery.utils.ThrottledContentObserver;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 public abstract class BaseSelectLoader<T> extends AsyncTaskLoader<CursorResult<T>> {
 
-    private final Loader.ForceLoadContentObserver mObserver = new Loader.ForceLoadContentObserver();
+    /**
+     * The diff of a loaded result, kept until the result is delivered
+     */
+    private static final class LoadedDiff {
+        private final ResultDiff.Snapshot mBase;
+        private final ResultDiff.Snapshot mSnapshot;
+        private final ResultDiff mDiff;
+
+        LoadedDiff(ResultDiff.Snapshot base, ResultDiff.Snapshot snapshot, ResultDiff diff) {
+            mBase = base;
+            mSnapshot = snapshot;
+            mDiff = diff;
+        }
+    }
+
+    private final ThrottledContentObserver mObserver;
+    private final Map<CursorResult<T>, LoadedDiff> mLoadedDiffs = new IdentityHashMap<>();
     private CursorResult<T> mCursorResult;
+    private volatile ResultDiff.Snapshot mDeliveredSnapshot;
+    private ResultDiff mDiff;
+    private CancellationSignal mCancellationSignal;
 
     public BaseSelectLoader(Context context) {
+        this(context, 0);
+    }
+
+    /**
+     * @param reloadThrottleMs The minimum interval in milliseconds between two reloads triggered by data changes, which
+     *                         are coalesced by the {@link net.frju.androidquery.utils.ChangeDispatcher} in the meantime.
+     *                         A reload also cancels the load in progress, whose result would be stale.
+     */
+    public BaseSelectLoader(Context context, long reloadThrottleMs) {
+        this(context, null, reloadThrottleMs);
+    }
+
+    /**
+     * @param contentUri       The URI of the loaded table, like Q.User.getContentUri(). The cursor notifies its changes
+     *                         without URI, so they are coalesced under this one, with the other observers of that URI
+     *                         and following its ChangeDispatcher settings. Can be null.
+     * @param reloadThrottleMs The minimum interval in milliseconds between two reloads triggered by data changes, see
+     *                         {@link #BaseSelectLoader(Context, long)}
+     */
+    public BaseSelectLoader(Context context, Uri contentUri, long reloadThrottleMs) {
         super(context);
+
+        mObserver = new ThrottledContentObserver(new Handler(Looper.getMainLooper()), reloadThrottleMs, contentUri) {
+            @Override
+            public boolean deliverSelfNotifications() {
+                return true;
+            }
+
+            @Override
+            public void onChangeThrottled() {
+                onContentChanged();
+            }
+        };
     }
 
     @Override
     public CursorResult<T> loadInBackground() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            synchronized (this) {
+                if (isLoadInBackgroundCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                mCancellationSignal = new CancellationSignal();
+            }
+        }
+
+        try {
+            return loadResult();
+        } finally {
+            synchronized (this) {
+                mCancellationSignal = null;
+            }
+        }
+    }
+
+    private CursorResult<T> loadResult() {
         CursorResult<T> cursor = doSelect();
 
         if (cursor != null) {
-            // Ensure the cursor window is filled
-            cursor.getCount();
-            cursor.registerContentObserver(mObserver);
+            try {
+                // Ensure the cursor window is filled
+                cursor.getCount();
+                cursor.registerContentObserver(mObserver);
+
+                if (isDiffEnabled()) {
+                    ResultDiff.Snapshot base = mDeliveredSnapshot;
+                    ResultDiff.Snapshot snapshot = ResultDiff.Snapshot.of(cursor);
+                    LoadedDiff loadedDiff = new LoadedDiff(base, snapshot,
+                            base != null ? ResultDiff.compute(base, snapshot) : null);
+                    synchronized (mLoadedDiffs) {
+                        mLoadedDiffs.put(cursor, loadedDiff);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // like a cancellation while the window is filled, the cursor would never be delivered nor closed
+                cursor.close();
+                throw e;
+            }
         }
 
         return cursor;
     }
 
+    @Override
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+
+        synchronized (this) {
+            if (mCancellationSignal != null) {
+                mCancellationSignal.cancel();
+            }
+        }
+    }
+
+    /**
+     * The signal cancelled when the current load becomes stale, to give to the query of doSelect() with
+     * Select.Builder#cancellationSignal()
+     *
+     * @return The signal of the current load, or null before API 16 or outside of loadInBackground()
+     */
+    protected synchronized CancellationSignal getCancellationSignal() {
+        return mCancellationSignal;
+    }
+
+    @Override
+    public void onCanceled(CursorResult<T> data) {
+        if (data != null) {
+            synchronized (mLoadedDiffs) {
+                mLoadedDiffs.remove(data);
+            }
+
+            // Never delivered, nobody else can close it
+            if (!data.isClosed()) {
+                data.close();
+            }
+        }
+    }
+
     @Override
     public void deliverResult(CursorResult<T> data) {
         if (isReset()) {
@@ -35,6 +167,22 @@ public abstract class BaseSelectLoader<T> extends AsyncTaskLoader<CursorResult<T
             return;
         }
 
+        if (data != mCursorResult) {
+            LoadedDiff loadedDiff = null;
+            if (data != null) {
+                synchronized (mLoadedDiffs) {
+                    loadedDiff = mLoadedDiffs.remove(data);
+                }
+            }
+
+            // Only valid if computed against the result delivered right before
+            mDiff = loadedDiff != null && loadedDiff.mBase == mDeliveredSnapshot ? loadedDiff.mDiff : null;
+            mDeliveredSnapshot = loadedDiff != null ? loadedDiff.mSnapshot : null;
+        } else {
+            // Delivered again, for instance to a new activity, which needs to bind it all
+            mDiff = null;
+        }
+
         this.mCursorResult = data;
 
         super.deliverResult(data);
@@ -65,6 +213,28 @@ public abstract class BaseSelectLoader<T> extends AsyncTaskLoader<CursorResult<T
         onStopLoading();
 
         mCursorResult = null;
+        mDeliveredSnapshot = null;
+        mDiff = null;
+    }
+
+    /**
+     * Override it to compute, on the loader thread, the edit script between the previous result and each new one, see
+     * {@link #getDiff()}. The whole result is read once more for that.
+     *
+     * @return Whether the results are diffed, false by default
+     */
+    protected boolean isDiffEnabled() {
+        return false;
+    }
+
+    /**
+     * To be called from onLoadFinished(), to only notify the adapter of the modified rows instead of rebinding it all
+     *
+     * @return The edit script from the previously delivered result to the current one, or null when the whole result
+     * must be rebound: diffing disabled, first result, or no previous result to compare with
+     */
+    public ResultDiff getDiff() {
+        return mDiff;
     }
 
     public abstract CursorResult<T> doSelect();
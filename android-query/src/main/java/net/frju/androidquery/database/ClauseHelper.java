@@ -15,6 +15,8 @@
  */
 package net.frju.androidquery.database;
 
+import android.database.sqlite.SQLiteProgram;
+
 import net.frju.androidquery.operation.condition.And;
 import net.frju.androidquery.operation.condition.Condition;
 import net.frju.androidquery.operation.condition.In;
@@ -31,8 +33,11 @@ import net.frju.androidquery.operation.keyword.Limit;
 import net.frju.androidquery.operation.keyword.OrderBy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
 * @author Samuel Kirton [sam@memtrip.com]
@@ -47,182 +52,398 @@ public class ClauseHelper {
     private static final String IN = "IN";
     private static final String AND = "AND";
     private static final String OR = "OR";
+    private static final int SHAPE_CACHE_SIZE = 256;
 
-    protected ClauseHelper() { }
+    // Rendered SQL by query shape, the bound values being extracted separately
+    private final LinkedHashMap<SqlShape, String> mShapeCache = new LinkedHashMap<SqlShape, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SqlShape, String> eldest) {
+            return size() > SHAPE_CACHE_SIZE;
+        }
+    };
+    private long mShapeCacheHitCount;
+    private long mShapeCacheMissCount;
+
+    // Buffers reused by each thread, to not allocate while walking the condition trees
+    private static final ThreadLocal<ConditionBuffer> sConditionBuffer = new ThreadLocal<ConditionBuffer>() {
+        @Override
+        protected ConditionBuffer initialValue() {
+            return new ConditionBuffer();
+        }
+    };
+
+    /**
+     * The SQL and the arguments of some conditions, see {@link #renderCondition(Condition[])}
+     */
+    public static final class RenderedCondition {
+        static final RenderedCondition EMPTY = new RenderedCondition("", 0, new byte[0], new long[0], new Object[0]);
+
+        private final String mSql;
+        private final int mArgCount;
+        private final byte[] mArgTypes;
+        private final long[] mNumericArgs;
+        private final Object[] mObjectArgs;
+        private String[] mArgs;
+
+        RenderedCondition(String sql, int argCount, byte[] argTypes, long[] numericArgs, Object[] objectArgs) {
+            mSql = sql;
+            mArgCount = argCount;
+            mArgTypes = argTypes;
+            mNumericArgs = numericArgs;
+            mObjectArgs = objectArgs;
+        }
 
-    public String getCondition(Condition[] condition) {
-        StringBuilder clauseBuilder = new StringBuilder();
+        public String getSql() {
+            return mSql;
+        }
 
-        if (condition != null && condition.length > 0) {
-            if (condition.length == 1) {
-                clauseBuilder.append(getCondition(condition[0]));
-            } else {
-                clauseBuilder.append(getCondition(Condition.and(condition)));
+        /**
+         * @return The arguments converted to strings, as expected by the ContentResolver
+         */
+        public String[] getArgs() {
+            if (mArgs == null) {
+                mArgs = toStringArgs(mArgCount, mArgTypes, mNumericArgs, mObjectArgs);
             }
+            return mArgs;
         }
 
-        return clauseBuilder.toString();
+        public int getArgCount() {
+            return mArgCount;
+        }
+
+        /**
+         * Bind the arguments with their SQLite type, which avoids the type affinity conversions of string arguments
+         *
+         * @param program    The compiled statement or query
+         * @param firstIndex The 1-based index of the first argument in the program
+         */
+        public void bindArgs(SQLiteProgram program, int firstIndex) {
+            for (int i = 0; i < mArgCount; i++) {
+                int index = firstIndex + i;
+                switch (mArgTypes[i]) {
+                    case ARG_LONG:
+                        program.bindLong(index, mNumericArgs[i]);
+                        break;
+                    case ARG_DOUBLE:
+                        program.bindDouble(index, Double.longBitsToDouble(mNumericArgs[i]));
+                        break;
+                    default:
+                        Object arg = mObjectArgs[i];
+                        if (arg == null) {
+                            program.bindNull(index);
+                        } else if (arg instanceof byte[]) {
+                            program.bindBlob(index, (byte[]) arg);
+                        } else {
+                            program.bindString(index, (String) arg);
+                        }
+                        break;
+                }
+            }
+        }
     }
 
-    private String getCondition(Condition condition) {
-        StringBuilder clauseBuilder = new StringBuilder();
+    private static final byte ARG_LONG = 0;
+    private static final byte ARG_DOUBLE = 1;
+    private static final byte ARG_OBJECT = 2; // a String, a byte[] or null
+
+    private static final class ConditionBuffer {
+        private static final int MAX_RETAINED_SQL_LENGTH = 16 * 1024;
+        private static final int MAX_RETAINED_ARG_COUNT = 1024;
+        private static final int INITIAL_ARG_CAPACITY = 8;
+
+        private StringBuilder mSql = new StringBuilder();
+        private final ArrayList<Object> mShapeTokens = new ArrayList<>();
+        // The arguments are kept in parallel arrays, doubles as their raw bits, so numbers are never boxed
+        private int mArgCount;
+        private byte[] mArgTypes = new byte[INITIAL_ARG_CAPACITY];
+        private long[] mNumericArgs = new long[INITIAL_ARG_CAPACITY];
+        private Object[] mObjectArgs = new Object[INITIAL_ARG_CAPACITY];
+
+        void clear() {
+            if (mSql.capacity() > MAX_RETAINED_SQL_LENGTH) {
+                // do not keep forever the memory used by an exceptionally big query
+                mSql = new StringBuilder();
+                mShapeTokens.clear();
+                mShapeTokens.trimToSize();
+            } else {
+                mSql.setLength(0);
+                mShapeTokens.clear();
+            }
 
-        if (condition instanceof In) {
-            clauseBuilder.append(buildInCondition((In) condition));
-        } else if (condition instanceof Where) {
-            clauseBuilder.append(buildWhereCondition((Where) condition));
-        } else if (condition instanceof On) {
-            clauseBuilder.append(buildOnCondition((On) condition));
-        } else if (condition instanceof And) {
-            clauseBuilder.append(BRACKET_START);
-            And and = (And) condition;
-            for (Condition item : and.getCondition()) {
-                clauseBuilder.append(getCondition(item));
-                clauseBuilder.append(SPACE);
-                clauseBuilder.append(AND);
-                clauseBuilder.append(SPACE);
+            if (mArgTypes.length > MAX_RETAINED_ARG_COUNT) {
+                mArgTypes = new byte[INITIAL_ARG_CAPACITY];
+                mNumericArgs = new long[INITIAL_ARG_CAPACITY];
+                mObjectArgs = new Object[INITIAL_ARG_CAPACITY];
+            } else {
+                Arrays.fill(mObjectArgs, 0, mArgCount, null);
             }
+            mArgCount = 0;
+        }
 
-            // remove the excess AND with its 2 spaces
-            clauseBuilder.delete(clauseBuilder.length() - 5, clauseBuilder.length());
-            clauseBuilder.append(BRACKET_END);
-        } else if (condition instanceof Or) {
-            clauseBuilder.append(BRACKET_START);
-            Or or = (Or) condition;
-            for (Condition item : or.getCondition()) {
-                clauseBuilder.append(getCondition(item));
-                clauseBuilder.append(SPACE);
-                clauseBuilder.append(OR);
-                clauseBuilder.append(SPACE);
+        private int nextArg(byte type) {
+            if (mArgCount == mArgTypes.length) {
+                int capacity = mArgCount * 2;
+                mArgTypes = Arrays.copyOf(mArgTypes, capacity);
+                mNumericArgs = Arrays.copyOf(mNumericArgs, capacity);
+                mObjectArgs = Arrays.copyOf(mObjectArgs, capacity);
             }
+            mArgTypes[mArgCount] = type;
+            return mArgCount++;
+        }
+
+        void addLong(long value) {
+            mNumericArgs[nextArg(ARG_LONG)] = value;
+        }
 
-            // remove the excess OR with its 2 spaces
-            clauseBuilder.delete(clauseBuilder.length() - 4, clauseBuilder.length());
-            clauseBuilder.append(BRACKET_END);
+        void addDouble(double value) {
+            mNumericArgs[nextArg(ARG_DOUBLE)] = Double.doubleToRawLongBits(value);
         }
 
-        return clauseBuilder.toString();
+        void addObject(Object value) {
+            if (value instanceof Boolean) {
+                addLong((Boolean) value ? 1 : 0);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                addLong(((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                addDouble(((Number) value).doubleValue());
+            } else if (value == null || value instanceof byte[]) {
+                mObjectArgs[nextArg(ARG_OBJECT)] = value;
+            } else {
+                mObjectArgs[nextArg(ARG_OBJECT)] = String.valueOf(value);
+            }
+        }
+
+        RenderedCondition toRenderedCondition(String sql) {
+            return new RenderedCondition(sql, mArgCount, Arrays.copyOf(mArgTypes, mArgCount),
+                    Arrays.copyOf(mNumericArgs, mArgCount), Arrays.copyOf(mObjectArgs, mArgCount));
+        }
+
+        String[] getArgs() {
+            return toStringArgs(mArgCount, mArgTypes, mNumericArgs, mObjectArgs);
+        }
     }
 
-    private String buildWhereCondition(Where where) {
-        StringBuilder stringBuilder = new StringBuilder();
+    private static String[] toStringArgs(int argCount, byte[] argTypes, long[] numericArgs, Object[] objectArgs) {
+        String[] args = new String[argCount];
+        for (int i = 0; i < argCount; i++) {
+            switch (argTypes[i]) {
+                case ARG_LONG:
+                    args[i] = Long.toString(numericArgs[i]);
+                    break;
+                case ARG_DOUBLE:
+                    args[i] = Double.toString(Double.longBitsToDouble(numericArgs[i]));
+                    break;
+                default:
+                    args[i] = String.valueOf(objectArgs[i]);
+                    break;
+            }
+        }
+        return args;
+    }
+
+    protected ClauseHelper() { }
+
+    /**
+     * @return The number of SQL renderings which have been avoided thanks to the query shape cache
+     */
+    public synchronized long getShapeCacheHitCount() {
+        return mShapeCacheHitCount;
+    }
+
+    /**
+     * @return The number of SQL renderings done because the query shape was not cached
+     */
+    public synchronized long getShapeCacheMissCount() {
+        return mShapeCacheMissCount;
+    }
 
-        stringBuilder.append(where.getColumn());
-        stringBuilder.append(SPACE);
-        stringBuilder.append(where.getOperator().toString());
-        stringBuilder.append(SPACE);
-        if (where.getValue() == null) {
-            stringBuilder.append(NULL);
+    private synchronized String getCachedSql(SqlShape shape) {
+        String sql = mShapeCache.get(shape);
+        if (sql != null) {
+            mShapeCacheHitCount++;
         } else {
-            stringBuilder.append(VALUE);
+            mShapeCacheMissCount++;
         }
+        return sql;
+    }
 
-        return stringBuilder.toString();
+    private synchronized void putCachedSql(SqlShape shape, String sql) {
+        mShapeCache.put(shape, sql);
     }
 
-    private String buildInCondition(In in) {
-        String row = in.getColumn();
-        int length = in.getValues().length;
+    /**
+     * Render the SQL and the arguments of the conditions, joined with AND
+     *
+     * @param condition The conditions, can be null
+     * @return The rendered condition, with an empty SQL when there is no condition
+     */
+    public RenderedCondition renderCondition(Condition[] condition) {
+        if (condition == null || condition.length == 0) {
+            return RenderedCondition.EMPTY;
+        }
 
-        StringBuilder stringBuilder = new StringBuilder();
+        ConditionBuffer buffer = collect(condition);
 
-        stringBuilder.append(row);
-        stringBuilder.append(SPACE);
-        stringBuilder.append(IN);
-        stringBuilder.append(SPACE);
+        // Only the arguments change between two executions of the same shape, its SQL is written once
+        SqlShape shape = new SqlShape(buffer.mShapeTokens);
+        String sql = getCachedSql(shape);
+        if (sql == null) {
+            appendSql(condition, buffer.mSql);
+            sql = buffer.mSql.toString();
+            putCachedSql(shape, sql);
+        }
 
-        stringBuilder.append(BRACKET_START);
+        return buffer.toRenderedCondition(sql);
+    }
 
-        if (length > 0) {
-            for (int i = 0; i < length; i++) {
-                stringBuilder.append(VALUE);
-                stringBuilder.append(COMMA);
-            }
+    public String getCondition(Condition[] condition) {
+        return renderCondition(condition).getSql();
+    }
 
-            stringBuilder.delete(stringBuilder.length() - 1, stringBuilder.length());
+    public String[] getConditionArgs(Condition[] condition) {
+        if (condition == null || condition.length == 0) {
+            return RenderedCondition.EMPTY.getArgs();
         }
 
-        stringBuilder.append(BRACKET_END);
-
-        return stringBuilder.toString();
+        return collect(condition).getArgs();
     }
 
-    private String buildOnCondition(On on) {
-        String stringBuilder = "ON" +
-                SPACE +
-                on.getColumn1() +
-                SPACE +
-                "=" +
-                SPACE +
-                on.getColumn2();
+    /**
+     * Walk the condition tree once, collecting its shape and its arguments into the buffer of the current thread
+     */
+    private ConditionBuffer collect(Condition[] condition) {
+        ConditionBuffer buffer = sConditionBuffer.get();
+        buffer.clear();
+
+        buffer.mShapeTokens.add(SqlShape.CONDITIONS);
+        if (condition.length == 1) {
+            SqlShape.addCount(buffer.mShapeTokens, condition);
+            collect(condition[0], buffer);
+        } else {
+            collect(condition, buffer);
+        }
 
-        return stringBuilder;
+        return buffer;
     }
 
-    public String[] getConditionArgs(Condition[] condition) {
-        List<String> args = new ArrayList<>();
+    private void collect(Condition[] conditions, ConditionBuffer buffer) {
+        SqlShape.addCount(buffer.mShapeTokens, conditions);
 
-        if (condition != null) {
-            for (Condition item : condition) {
-                args.addAll(getConditionArgs(item));
-            }
+        for (Condition condition : conditions) {
+            collect(condition, buffer);
         }
+    }
 
-        return args.toArray(new String[args.size()]);
+    /**
+     * @return The value, the "true" and "false" strings being compared as the 1 and 0 of the boolean columns
+     */
+    private static Object getWhereArg(Object value) {
+        if ("true".equals(value)) {
+            return "1";
+        } else if ("false".equals(value)) {
+            return "0";
+        }
+        return value;
     }
 
-    private List<String> getConditionArgs(Condition condition) {
-        List<String> args = new ArrayList<>();
+    private void collect(Condition condition, ConditionBuffer buffer) {
+        SqlShape.addNode(buffer.mShapeTokens, condition);
 
         if (condition instanceof In) {
-            args.addAll(buildInArgs((In) condition));
+            for (Object value : ((In) condition).getValues()) {
+                buffer.addObject(value);
+            }
         } else if (condition instanceof Where) {
-            String arg = buildWhereArgs((Where) condition);
-            if (arg != null) {
-                args.add(arg);
+            Where where = (Where) condition;
+            switch (where.getValueType()) {
+                case LONG:
+                    buffer.addLong(where.getLongValue());
+                    break;
+                case DOUBLE:
+                    buffer.addDouble(where.getDoubleValue());
+                    break;
+                default:
+                    if (where.getValue() != null) {
+                        buffer.addObject(getWhereArg(where.getValue()));
+                    }
+                    break;
             }
         } else if (condition instanceof And) {
-            And and = (And) condition;
-            for (Condition item : and.getCondition()) {
-                args.addAll(getConditionArgs(item));
-            }
+            collect(((And) condition).getCondition(), buffer);
         } else if (condition instanceof Or) {
-            Or or = (Or) condition;
-            for (Condition item : or.getCondition()) {
-                args.addAll(getConditionArgs(item));
-            }
+            collect(((Or) condition).getCondition(), buffer);
         }
-
-        return args;
     }
 
-    private String buildWhereArgs(Where where) {
-        if (where.getValue() == null) {
-            return null;
+    /**
+     * Write the SQL of the conditions, with a placeholder for each argument collected by {@link #collect(Condition[])}
+     */
+    private void appendSql(Condition[] condition, StringBuilder sql) {
+        if (condition.length == 1) {
+            appendSql(condition[0], sql);
         } else {
-            String value = String.valueOf(where.getValue());
+            sql.append(BRACKET_START);
+            appendSql(condition, AND, sql);
+            sql.append(BRACKET_END);
+        }
+    }
 
-            if (value.equals("true")) {
-                return "1";
-            } else if (value.equals("false")) {
-                return "0";
+    private void appendSql(Condition[] conditions, String separator, StringBuilder sql) {
+        for (int i = 0; i < conditions.length; i++) {
+            if (i > 0) {
+                sql.append(SPACE).append(separator).append(SPACE);
             }
-
-            return value;
+            appendSql(conditions[i], sql);
         }
     }
 
-    private List<String> buildInArgs(In in) {
-        List<String> args = new ArrayList<>();
+    private void appendSql(Condition condition, StringBuilder sql) {
+        if (condition instanceof In) {
+            In in = (In) condition;
+            sql.append(in.getColumn()).append(SPACE).append(IN).append(SPACE).append(BRACKET_START);
+            for (int i = 0; i < in.getValues().length; i++) {
+                if (i > 0) {
+                    sql.append(COMMA);
+                }
+                sql.append(VALUE);
+            }
+            sql.append(BRACKET_END);
+        } else if (condition instanceof Where) {
+            Where where = (Where) condition;
+            sql.append(where.getColumn())
+                    .append(SPACE)
+                    .append(where.getOperator().toString())
+                    .append(SPACE)
+                    .append(where.getValueType() == Where.ValueType.OBJECT && where.getValue() == null ? NULL : VALUE);
+        } else if (condition instanceof On) {
+            On on = (On) condition;
+            sql.append("ON").append(SPACE).append(on.getColumn1()).append(SPACE).append("=").append(SPACE).append(on.getColumn2());
+        } else if (condition instanceof And) {
+            sql.append(BRACKET_START);
+            appendSql(((And) condition).getCondition(), AND, sql);
+            sql.append(BRACKET_END);
+        } else if (condition instanceof Or) {
+            sql.append(BRACKET_START);
+            appendSql(((Or) condition).getCondition(), OR, sql);
+            sql.append(BRACKET_END);
+        }
+    }
 
-        for (int i = 0; i < in.getValues().length; i++) {
-            args.add(String.valueOf(in.getValues()[i]));
+    public String getOrderBy(OrderBy[] orderByArray) {
+        if (orderByArray == null || orderByArray.length == 0) {
+            return "";
         }
 
-        return args;
+        SqlShape shape = SqlShape.ofOrderBy(orderByArray);
+        String sql = getCachedSql(shape);
+        if (sql == null) {
+            sql = buildOrderBy(orderByArray);
+            putCachedSql(shape, sql);
+        }
+        return sql;
     }
 
-    public String getOrderBy(OrderBy[] orderByArray) {
+    private String buildOrderBy(OrderBy[] orderByArray) {
         StringBuilder stringBuilder = new StringBuilder();
 
         if (orderByArray != null && orderByArray.length > 0) {
@@ -282,6 +503,17 @@ public class ClauseHelper {
 
     public String buildJoinQuery(String[] tableColumns, Join[] joins, String tableName, Condition[] condition,
                                  OrderBy[] orderBy, Limit limit, Resolver resolver) {
+        SqlShape shape = SqlShape.ofJoinQuery(tableColumns, joins, tableName, condition, orderBy, limit);
+        String sql = getCachedSql(shape);
+        if (sql == null) {
+            sql = renderJoinQuery(tableColumns, joins, tableName, condition, orderBy, limit, resolver);
+            putCachedSql(shape, sql);
+        }
+        return sql;
+    }
+
+    private String renderJoinQuery(String[] tableColumns, Join[] joins, String tableName, Condition[] condition,
+                                   OrderBy[] orderBy, Limit limit, Resolver resolver) {
 
         String[] joinColumns = getJoinColumns(joins, resolver);
 
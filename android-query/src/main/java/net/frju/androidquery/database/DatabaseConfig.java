@@ -0,0 +1,175 @@
+package net.frju.androidquery.database;
+
+import android.support.annotation.NonNull;
+
+/**
+ * The SQLite configuration of a local database, see {@link BaseLocalDatabaseProvider#getDatabaseConfig()}
+ */
+public final class DatabaseConfig {
+
+    /**
+     * The configuration used by default, keeping the SQLite and Android defaults
+     */
+    public static final DatabaseConfig DEFAULT = new Builder().build();
+
+    /**
+     * The rollback journal modes, used when the write-ahead logging is disabled
+     */
+    public enum JournalMode {
+        DELETE,
+        TRUNCATE,
+        PERSIST,
+        MEMORY
+    }
+
+    public enum SynchronousMode {
+        OFF,
+        NORMAL,
+        FULL
+    }
+
+    private final boolean mIsWriteAheadLoggingEnabled;
+    private final JournalMode mJournalMode;
+    private final SynchronousMode mSynchronousMode;
+    private final int mMaxSqlCacheSize;
+    private final long mBackgroundCheckpointWalSize;
+    private final long mGroupCommitMaxLatency;
+    private final int mGroupCommitMaxBatchSize;
+
+    private DatabaseConfig(Builder builder) {
+        mIsWriteAheadLoggingEnabled = builder.mIsWriteAheadLoggingEnabled;
+        mJournalMode = builder.mJournalMode;
+        mSynchronousMode = builder.mSynchronousMode;
+        mMaxSqlCacheSize = builder.mMaxSqlCacheSize;
+        mBackgroundCheckpointWalSize = builder.mBackgroundCheckpointWalSize;
+        mGroupCommitMaxLatency = builder.mGroupCommitMaxLatency;
+        mGroupCommitMaxBatchSize = builder.mGroupCommitMaxBatchSize;
+    }
+
+    public boolean isWriteAheadLoggingEnabled() {
+        return mIsWriteAheadLoggingEnabled;
+    }
+
+    public JournalMode getJournalMode() {
+        return mJournalMode;
+    }
+
+    public SynchronousMode getSynchronousMode() {
+        return mSynchronousMode;
+    }
+
+    public int getMaxSqlCacheSize() {
+        return mMaxSqlCacheSize;
+    }
+
+    public long getBackgroundCheckpointWalSize() {
+        return mBackgroundCheckpointWalSize;
+    }
+
+    public boolean isGroupCommitEnabled() {
+        return mGroupCommitMaxBatchSize > 0;
+    }
+
+    public long getGroupCommitMaxLatency() {
+        return mGroupCommitMaxLatency;
+    }
+
+    public int getGroupCommitMaxBatchSize() {
+        return mGroupCommitMaxBatchSize;
+    }
+
+    public static class Builder {
+        private boolean mIsWriteAheadLoggingEnabled;
+        private JournalMode mJournalMode;
+        private SynchronousMode mSynchronousMode;
+        private int mMaxSqlCacheSize;
+        private long mBackgroundCheckpointWalSize;
+        private long mGroupCommitMaxLatency;
+        private int mGroupCommitMaxBatchSize;
+
+        /**
+         * Enable the write-ahead logging: the reads outside of a transaction, like Select or Count queries, then run
+         * concurrently on the read connections of Android's pool while the writes go through its primary connection
+         *
+         * @param isEnabled Whether the write-ahead logging is enabled, false by default
+         * @return The builder
+         */
+        public
+        @NonNull
+        Builder writeAheadLogging(boolean isEnabled) {
+            mIsWriteAheadLoggingEnabled = isEnabled;
+            return this;
+        }
+
+        /**
+         * @param journalMode The rollback journal mode, ignored when the write-ahead logging is enabled. Null keeps the
+         *                    default one.
+         * @return The builder
+         */
+        public
+        @NonNull
+        Builder journalMode(JournalMode journalMode) {
+            mJournalMode = journalMode;
+            return this;
+        }
+
+        /**
+         * @param synchronousMode The synchronous mode of the writing connection, null keeps the default one
+         * @return The builder
+         */
+        public
+        @NonNull
+        Builder synchronousMode(SynchronousMode synchronousMode) {
+            mSynchronousMode = synchronousMode;
+            return this;
+        }
+
+        /**
+         * @param maxSqlCacheSize The number of compiled statements cached by each connection, 0 keeps the default one
+         * @return The builder
+         */
+        public
+        @NonNull
+        Builder maxSqlCacheSize(int maxSqlCacheSize) {
+            mMaxSqlCacheSize = maxSqlCacheSize;
+            return this;
+        }
+
+        /**
+         * Move the checkpoints of the write-ahead log out of the committing threads: the automatic checkpoints are
+         * disabled and a passive checkpoint is run on the background executor once a commit leaves the log bigger than
+         * the given size. Only used when the write-ahead logging is enabled.
+         *
+         * @param walSize The size of the write-ahead log in bytes triggering a checkpoint, 0 to keep the automatic ones
+         * @return The builder
+         */
+        public
+        @NonNull
+        Builder backgroundCheckpoint(long walSize) {
+            mBackgroundCheckpointWalSize = walSize;
+            return this;
+        }
+
+        /**
+         * Enable the queued writes, see {@link BaseLocalDatabaseProvider#enqueueWrite(java.util.concurrent.Callable)}: a
+         * single writer thread commits them in batches, one transaction per batch
+         *
+         * @param maxLatencyMs The maximum time in milliseconds a batch waits for more writes after its first one
+         * @param maxBatchSize The maximum number of writes committed in a single transaction, 0 to disable the queue
+         * @return The builder
+         */
+        public
+        @NonNull
+        Builder groupCommit(long maxLatencyMs, int maxBatchSize) {
+            mGroupCommitMaxLatency = maxLatencyMs;
+            mGroupCommitMaxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public
+        @NonNull
+        DatabaseConfig build() {
+            return new DatabaseConfig(this);
+        }
+    }
+}
@@ -17,16 +17,39 @@ package net.frju.androidquery.database;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.os.CancellationSignal;
 
+import net.frju.androidquery.operation.condition.And;
 import net.frju.androidquery.operation.condition.Condition;
+import net.frju.androidquery.operation.condition.In;
+import net.frju.androidquery.operation.condition.Or;
+import net.frju.androidquery.operation.condition.Where;
 import net.frju.androidquery.operation.join.Join;
 import net.frju.androidquery.operation.keyword.Limit;
 import net.frju.androidquery.operation.keyword.OrderBy;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * @author Samuel Kirton [sam@memtrip.com]
  */
 public abstract class DatabaseProvider {
+    /**
+     * The default limit of SQLite on the number of variables of a statement
+     */
+    protected static final int MAX_SQL_VARIABLES = 999;
+
+    /**
+     * The maximum number of values of an In condition bound in a single statement, less if the other conditions need
+     * more than the remaining variables
+     */
+    protected static final int MAX_IN_VALUES = 500;
+
     protected final ClauseHelper mClauseHelper;
 
     protected abstract Resolver getResolver();
@@ -35,18 +58,289 @@ public abstract class DatabaseProvider {
         mClauseHelper = new ClauseHelper();
     }
 
+    /**
+     * @return The helper rendering the SQL of this provider queries, notably giving access to its cache statistics
+     */
+    public ClauseHelper getClauseHelper() {
+        return mClauseHelper;
+    }
+
     abstract protected long insert(String tableName, ContentValues valuesArray);
 
     abstract protected int bulkInsert(String tableName, ContentValues[] valuesArray);
 
+    /**
+     * Insert the models and set the generated ids back to them when possible
+     *
+     * @param tableDescription The description of the models table
+     * @param models           The models to insert
+     * @return The number of inserted models
+     */
+    protected int bulkInsert(TableDescription tableDescription, Object[] models) {
+        if (models.length == 1) {
+            long newId = insert(tableDescription.getTableRealName(), tableDescription.getContentValues(models[0]));
+            if (newId != -1) {
+                tableDescription.setIdToModel(models[0], newId);
+                return 1;
+            } else {
+                return 0;
+            }
+        }
+
+        ContentValues[] valuesArray = new ContentValues[models.length];
+        for (int i = 0; i < models.length; i++) {
+            valuesArray[i] = tableDescription.getContentValues(models[i]);
+        }
+
+        return bulkInsert(tableDescription.getTableRealName(), valuesArray);
+    }
+
     abstract protected int bulkUpdate(String tableName, ContentValues[] valuesArray, Condition[][] conditionsArray);
 
+    /**
+     * Update the models, matching each of them by its primary key
+     *
+     * @param tableDescription The description of the models table
+     * @param models           The models to update
+     * @return The number of updated rows
+     */
+    protected int bulkUpdate(TableDescription tableDescription, Object[] models) {
+        String primaryKeyName = tableDescription.getPrimaryKeyRealName();
+        ContentValues[] valuesArray = new ContentValues[models.length];
+        Condition[][] conditionsArray = new Condition[models.length][];
+        for (int i = 0; i < models.length; i++) {
+            valuesArray[i] = tableDescription.getContentValues(models[i]);
+            conditionsArray[i] = new Condition[]{
+                    Where.where(primaryKeyName, Where.Op.IS, tableDescription.getPrimaryKeyValue(models[i]))
+            };
+        }
+
+        return bulkUpdate(tableDescription.getTableRealName(), valuesArray, conditionsArray);
+    }
+
+    /**
+     * Update the models which already exist, matching them by their primary key, and insert the other ones
+     *
+     * @param tableDescription The description of the models table, which must have a primary key
+     * @param models           The models to save
+     * @return The number of updated or inserted models
+     */
+    protected int bulkSave(TableDescription tableDescription, Object[] models) {
+        boolean isPrimaryKeyAutoIncrement = tableDescription.isPrimaryKeyAutoIncrement();
+
+        ArrayList<Object> modelsToProbe = new ArrayList<>(models.length);
+        ArrayList<Object> modelsToInsert = new ArrayList<>();
+        for (Object model : models) {
+            if (isPrimaryKeyAutoIncrement) {
+                // first valid autoincrement id is always >= 1, no need to check if the model exists below that
+                Object primaryKeyValue = tableDescription.getPrimaryKeyValue(model);
+                if (Long.parseLong(primaryKeyValue.toString()) <= 0) { // should be a short, int or long
+                    modelsToInsert.add(model);
+                    continue;
+                }
+            }
+            modelsToProbe.add(model);
+        }
+
+        Set<Object> existingKeys = getExistingPrimaryKeys(tableDescription, modelsToProbe);
+        ArrayList<Object> modelsToUpdate = new ArrayList<>(existingKeys.size());
+        for (Object model : modelsToProbe) {
+            if (existingKeys.contains(toComparableKey(tableDescription.getPrimaryKeyValue(model)))) {
+                modelsToUpdate.add(model);
+            } else {
+                modelsToInsert.add(model);
+            }
+        }
+
+        int nbSave = 0;
+
+        if (!modelsToUpdate.isEmpty()) {
+            for (Object model : modelsToUpdate) {
+                if (model instanceof ModelListener) {
+                    ((ModelListener) model).onPreUpdate();
+                }
+            }
+            nbSave += bulkUpdate(tableDescription, modelsToUpdate.toArray());
+        }
+
+        if (!modelsToInsert.isEmpty()) {
+            for (Object model : modelsToInsert) {
+                if (model instanceof ModelListener) {
+                    ((ModelListener) model).onPreInsert();
+                }
+            }
+            nbSave += bulkInsert(tableDescription, modelsToInsert.toArray());
+        }
+
+        return nbSave;
+    }
+
+    /**
+     * Find which of the models already exist, with one IN query per chunk of primary keys instead of one query per model
+     *
+     * @return The existing primary keys, see {@link #toComparableKey(Object)}
+     */
+    private Set<Object> getExistingPrimaryKeys(TableDescription tableDescription, List<Object> models) {
+        String primaryKeyName = tableDescription.getPrimaryKeyRealName();
+        Set<Object> existingKeys = new HashSet<>();
+
+        for (int start = 0; start < models.size(); start += MAX_IN_VALUES) {
+            Object[] keys = new Object[Math.min(MAX_IN_VALUES, models.size() - start)];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = tableDescription.getPrimaryKeyValue(models.get(start + i));
+            }
+
+            Cursor cursor = query(tableDescription.getTableRealName(), new String[]{primaryKeyName},
+                    new Condition[]{new In(primaryKeyName, keys)}, null, null, null, null, null);
+            if (cursor != null) {
+                try {
+                    while (cursor.moveToNext()) {
+                        switch (cursor.getType(0)) {
+                            case Cursor.FIELD_TYPE_INTEGER:
+                                existingKeys.add(cursor.getLong(0));
+                                break;
+                            case Cursor.FIELD_TYPE_FLOAT:
+                                existingKeys.add(cursor.getDouble(0));
+                                break;
+                            case Cursor.FIELD_TYPE_BLOB:
+                                existingKeys.add(ByteBuffer.wrap(cursor.getBlob(0)));
+                                break;
+                            case Cursor.FIELD_TYPE_STRING:
+                                existingKeys.add(cursor.getString(0));
+                                break;
+                        }
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+        }
+
+        return existingKeys;
+    }
+
+    /**
+     * Convert a primary key value, already converted for the database, to the type SQLite returns for it. Comparing
+     * their string forms would not match a float, a blob or a boolean key with the stored value.
+     */
+    private static Object toComparableKey(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1L : 0L;
+        } else if (value instanceof Float || value instanceof Double) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) value);
+        }
+        return value != null ? value.toString() : null;
+    }
+
     abstract protected Cursor query(String tableName, String[] columns, Condition[] condition, Join[] joins,
                                     String groupBy, String having, OrderBy[] orderBy, Limit limit);
 
+    /**
+     * Query which can be cancelled while it runs, or while its cursor window is filled
+     *
+     * @param cancellationSignal The signal cancelling the query, null if it cannot be cancelled. It is only created on
+     *                           API 16+.
+     * @throws android.os.OperationCanceledException If the query has been cancelled
+     */
+    protected Cursor query(String tableName, String[] columns, Condition[] condition, Join[] joins,
+                           String groupBy, String having, OrderBy[] orderBy, Limit limit,
+                           CancellationSignal cancellationSignal) {
+        // A provider not supporting it runs the query until its end
+        return query(tableName, columns, condition, joins, groupBy, having, orderBy, limit);
+    }
+
     abstract protected int delete(String tableName, Condition[] condition);
 
     abstract protected long count(String tableName, Condition[] condition);
 
     abstract protected Cursor rawQuery(String sql);
+
+    /**
+     * @param condition The conditions, joined with AND
+     * @return The index of the biggest top-level In condition when the conditions cannot be bound in a single
+     * statement, or -1 if they can
+     * @throws IllegalArgumentException If splitting that In condition is not enough, like when an oversized In is
+     *                                  nested in an And or an Or condition
+     */
+    protected static int getOversizedInIndex(Condition[] condition) {
+        if (condition == null) {
+            return -1;
+        }
+
+        int inIndex = -1;
+        int argCount = 0;
+        for (int i = 0; i < condition.length; i++) {
+            argCount += getArgCount(condition[i]);
+            if (condition[i] instanceof In && (inIndex == -1
+                    || ((In) condition[i]).getValues().length > ((In) condition[inIndex]).getValues().length)) {
+                inIndex = i;
+            }
+        }
+
+        int inValueCount = inIndex != -1 ? ((In) condition[inIndex]).getValues().length : 0;
+        if (inValueCount <= MAX_IN_VALUES && argCount <= MAX_SQL_VARIABLES) {
+            return -1;
+        }
+        if (argCount - inValueCount >= MAX_SQL_VARIABLES) {
+            throw new IllegalArgumentException("The conditions have " + argCount + " values, more than the "
+                    + MAX_SQL_VARIABLES + " SQLite variables of a statement: only a top-level In condition can be split");
+        }
+
+        return inIndex;
+    }
+
+    /**
+     * Split the conditions on their oversized In condition, each of the returned conditions being run separately
+     *
+     * @param condition The conditions, joined with AND
+     * @param inIndex   The index of the oversized In condition, see {@link #getOversizedInIndex(Condition[])}
+     * @return The conditions with only a chunk of the In values each, sized to leave room for the other conditions
+     */
+    protected static List<Condition[]> splitOversizedIn(Condition[] condition, int inIndex) {
+        In in = (In) condition[inIndex];
+        Object[] values = in.getValues();
+
+        int otherArgCount = 0;
+        for (int i = 0; i < condition.length; i++) {
+            if (i != inIndex) {
+                otherArgCount += getArgCount(condition[i]);
+            }
+        }
+        int chunkSize = Math.min(MAX_IN_VALUES, MAX_SQL_VARIABLES - otherArgCount);
+
+        List<Condition[]> chunks = new ArrayList<>(values.length / chunkSize + 1);
+        for (int start = 0; start < values.length; start += chunkSize) {
+            Condition[] chunk = condition.clone();
+            chunk[inIndex] = new In(in.getColumn(), Arrays.copyOfRange(values, start, Math.min(start + chunkSize, values.length)));
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+
+    /**
+     * @return The number of variables bound for the condition, including the nested ones
+     */
+    private static int getArgCount(Condition condition) {
+        if (condition instanceof In) {
+            return ((In) condition).getValues().length;
+        } else if (condition instanceof Where) {
+            Where where = (Where) condition;
+            return where.getValueType() == Where.ValueType.OBJECT && where.getValue() == null ? 0 : 1;
+        } else if (condition instanceof And || condition instanceof Or) {
+            Condition[] children = condition instanceof And
+                    ? ((And) condition).getCondition()
+                    : ((Or) condition).getCondition();
+            int argCount = 0;
+            for (Condition child : children) {
+                argCount += getArgCount(child);
+            }
+            return argCount;
+        }
+        return 0;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package net.frju.androidquery.database;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single writer thread committing the queued writes of a provider in batches, one transaction per batch instead of one
+ * per write. A batch is committed once it reaches its maximum size, or once the maximum latency has elapsed since its first
+ * write has been queued.
+ */
+final class GroupCommitWriter implements Runnable {
+    private final BaseLocalDatabaseProvider mDatabaseProvider;
+    private final long mMaxLatencyNanos;
+    private final int mMaxBatchSize;
+    private final LinkedBlockingQueue<PendingWrite<?>> mQueue = new LinkedBlockingQueue<>();
+    private Thread mThread;
+
+    /**
+     * A write whose result is only published once it is committed
+     */
+    private static final class PendingWrite<T> extends FutureTask<T> {
+        private final Callable<T> mWrite;
+        private final QueryCallback<T> mCallback;
+
+        PendingWrite(Callable<T> write, QueryCallback<T> callback) {
+            super(write); // never run as a FutureTask, see GroupCommitWriter#commit()
+            mWrite = write;
+            mCallback = callback;
+        }
+
+        Callable<T> getWrite() {
+            return mWrite;
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            set((T) result);
+        }
+
+        void fail(Throwable throwable) {
+            setException(throwable);
+        }
+
+        @Override
+        protected void done() {
+            if (mCallback == null || isCancelled()) {
+                return;
+            }
+
+            T result;
+            try {
+                result = get();
+            } catch (ExecutionException e) {
+                mCallback.onError(e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                // cannot happen, the write is done
+                return;
+            }
+            mCallback.onResult(result);
+        }
+    }
+
+    GroupCommitWriter(BaseLocalDatabaseProvider databaseProvider, long maxLatencyMs, int maxBatchSize) {
+        mDatabaseProvider = databaseProvider;
+        mMaxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMs);
+        mMaxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @param callback Called on the writer thread once the write is committed or has failed, can be null
+     */
+    <T> Future<T> enqueue(@NonNull Callable<T> write, QueryCallback<T> callback) {
+        PendingWrite<T> pendingWrite = new PendingWrite<>(write, callback);
+        mQueue.add(pendingWrite);
+
+        synchronized (this) {
+            if (mThread == null) {
+                mThread = new Thread(this, "androidquery-group-commit");
+                mThread.setDaemon(true);
+                mThread.start();
+            }
+        }
+
+        return pendingWrite;
+    }
+
+    @Override
+    public void run() {
+        ArrayList<PendingWrite<?>> batch = new ArrayList<>();
+
+        try {
+            //noinspection InfiniteLoopStatement
+            while (true) {
+                batch.add(mQueue.take());
+
+                long deadline = System.nanoTime() + mMaxLatencyNanos;
+                while (batch.size() < mMaxBatchSize) {
+                    PendingWrite<?> pendingWrite = mQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (pendingWrite == null) {
+                        break;
+                    }
+                    batch.add(pendingWrite);
+                }
+
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // the next enqueue() starts a new thread, but the writes already queued would never be committed
+        IllegalStateException failure = new IllegalStateException("the group commit writer has been interrupted");
+        synchronized (this) {
+            mThread = null;
+            mQueue.drainTo(batch);
+        }
+        for (PendingWrite<?> pendingWrite : batch) {
+            pendingWrite.fail(failure);
+        }
+    }
+
+    private void commit(final List<PendingWrite<?>> batch) {
+        final Object[] results = new Object[batch.size()];
+        final Throwable[] failures = new Throwable[batch.size()];
+
+        try {
+            mDatabaseProvider.runInTransaction(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int i = 0; i < batch.size(); i++) {
+                        try {
+                            // in its own savepoint, so a failing write does not prevent the other ones to be committed
+                            results[i] = mDatabaseProvider.runInTransaction(batch.get(i).getWrite());
+                        } catch (RuntimeException e) {
+                            failures[i] = e;
+                        }
+                    }
+                    return null;
+                }
+            });
+        } catch (Throwable t) {
+            // the writer thread must survive, to not leave the next writes pending forever
+            for (PendingWrite<?> pendingWrite : batch) {
+                pendingWrite.fail(t);
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (failures[i] != null) {
+                batch.get(i).fail(failures[i]);
+            } else {
+                batch.get(i).complete(results[i]);
+            }
+        }
+    }
+}
@@ -2,11 +2,11 @@ package net.frju.androidquery.database;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
 import net.frju.androidquery.operation.condition.Condition;
 import net.frju.androidquery.operation.condition.In;
-import net.frju.androidquery.operation.condition.Where;
 import net.frju.androidquery.operation.function.Count;
 import net.frju.androidquery.operation.function.CursorResult;
 import net.frju.androidquery.operation.function.Delete;
@@ -14,67 +14,108 @@ import net.frju.androidquery.operation.function.Insert;
 import net.frju.androidquery.operation.function.Save;
 import net.frju.androidquery.operation.function.Select;
 import net.frju.androidquery.operation.function.Update;
+import net.frju.androidquery.operation.join.Join;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.Callable;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.FlowableOnSubscribe;
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
 import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import rx.exceptions.Exceptions;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.observers.SerializedSubscriber;
+import rx.subscriptions.Subscriptions;
 
 public abstract class Query {
 
-    protected static int save(Save save, Class<?> classDef, DatabaseProvider databaseProvider) {
-        int nb = 0;
-
-        TableDescription table = databaseProvider.getResolver().getTableDescription(classDef);
-        boolean isPrimaryKeyAutoIncrement = table.isPrimaryKeyAutoIncrement();
-
-        ArrayList<Object> modelsToInsert = new ArrayList<>();
-        for (Object model : save.getModels()) {
-            long id = 1; // first valid autoincrement id is always >= 1
-            if (isPrimaryKeyAutoIncrement) {
-                // Try to guess if we for sure need to insert thanks to primary key
-                Object primaryKeyValue = table.getPrimaryKeyValue(model);
-                id = Long.parseLong(primaryKeyValue.toString()); // should be a short, int or long
-            }
+    /**
+     * The time without modification waited by default before re-running an observed query
+     */
+    protected static final long DEFAULT_OBSERVE_DEBOUNCE_MS = 50;
+
+    /**
+     * The maximum time waited by default between a modification and the re-run of an observed query
+     */
+    protected static final long DEFAULT_OBSERVE_MAX_LATENCY_MS = 500;
+
+    private static final Object TABLES_CHANGED = new Object();
+
+    /**
+     * When to re-run an observed query: postponed by each new modification during the debounce time, but never beyond
+     * the max latency after the first one, like the ChangeDispatcher does. The time is the one of the scheduler running
+     * the timers, so that both can be replaced together in tests.
+     */
+    private static final class ChangeDeadline {
+        private final long mDebounceMs;
+        private final long mMaxLatencyMs;
+        private long mFirstChangeTime = -1;
+
+        ChangeDeadline(long debounceMs, long maxLatencyMs) {
+            mDebounceMs = debounceMs;
+            mMaxLatencyMs = maxLatencyMs;
+        }
 
-            //noinspection unchecked
-            if (id <= 0 || Update.getBuilder(classDef, databaseProvider).model(model).query() <= 0) {
-                modelsToInsert.add(model);
-            } else {
-                nb++;
+        /**
+         * @param now The current time in milliseconds
+         * @return The time to wait after a new modification
+         */
+        synchronized long getDelay(long now) {
+            if (mFirstChangeTime == -1) {
+                mFirstChangeTime = now;
             }
+            return Math.max(0, Math.min(mDebounceMs, mFirstChangeTime + mMaxLatencyMs - now));
         }
 
-        nb += Insert.getBuilder(databaseProvider, modelsToInsert.toArray()).query();
+        synchronized void reset() {
+            mFirstChangeTime = -1;
+        }
+    }
 
-        return nb;
+    protected static int save(Save save, Class<?> classDef, DatabaseProvider databaseProvider) {
+        Object[] models = save.getModels();
+        if (models == null || models.length == 0) {
+            return 0;
+        }
+
+        TableDescription tableDescription = getTableDescription(classDef, databaseProvider);
+        if (TextUtils.isEmpty(tableDescription.getPrimaryKeyRealName())) {
+            throw new IllegalStateException("save require a primary key");
+        }
+
+        return databaseProvider.bulkSave(tableDescription, models);
     }
 
     protected static int insert(Insert insert, Class<?> classDef, DatabaseProvider databaseProvider) {
         if (insert.getModels() != null && insert.getModels().length > 0) {
             Object[] models = insert.getModels();
-            ContentValues[] valuesArray = new ContentValues[models.length];
             TableDescription tableDescription = getTableDescription(classDef, databaseProvider);
-            for (int i = 0; i < models.length; i++) {
-                if (models[i] instanceof ModelListener) {
-                    ((ModelListener) models[i]).onPreInsert();
+            for (Object model : models) {
+                if (model instanceof ModelListener) {
+                    ((ModelListener) model).onPreInsert();
                 }
-                valuesArray[i] = tableDescription.getContentValues(models[i]);
             }
 
-            if (models.length == 1) {
-                long newId = databaseProvider.insert(tableDescription.getTableRealName(), valuesArray[0]);
-                if (newId != -1) {
-                    tableDescription.setIdToModel(models[0], newId);
-                    return 1;
-                } else {
-                    return 0;
-                }
-            } else {
-                return databaseProvider.bulkInsert(tableDescription.getTableRealName(), valuesArray);
-            }
+            return databaseProvider.bulkInsert(tableDescription, models);
         }
 
         return 0;
@@ -84,15 +125,29 @@ public abstract class Query {
 
         TableDescription tableDescription = getTableDescription(classDef, databaseProvider);
 
+        String[] columns;
+        if (select.getColumns() != null) {
+            columns = select.getColumns();
+            if (select.getJoin() != null) {
+                columns = new String[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = tableDescription.getTableRealName() + "." + select.getColumns()[i];
+                }
+            }
+        } else {
+            columns = select.getJoin() != null ? tableDescription.getColumnNamesWithTablePrefix() : tableDescription.getColumnNames();
+        }
+
         return databaseProvider.query(
                 tableDescription.getTableRealName(),
-                select.getJoin() != null ? tableDescription.getColumnNamesWithTablePrefix() : tableDescription.getColumnNames(),
+                columns,
                 select.getClause(),
                 select.getJoin(),
                 null,
                 null,
                 select.getOrderBy(),
-                select.getLimit()
+                select.getLimit(),
+                select.getCancellationSignal()
         );
     }
 
@@ -117,32 +172,17 @@ public abstract class Query {
         Object[] models = update.getModels();
         if (models != null) {
             TableDescription tableDesc = getTableDescription(classDef, databaseProvider);
-            String primaryKeyName = tableDesc.getPrimaryKeyRealName();
-            ContentValues[] valuesArray = new ContentValues[models.length];
-            Condition[][] conditionsArray = new Condition[models.length][];
-            for (int i = 0; i < models.length; i++) {
-                Object model = models[i];
-
-                conditionsArray[i] = update.getConditions();
-                if (conditionsArray[i] == null) {
-                    if (TextUtils.isEmpty(primaryKeyName)) {
-                        throw new IllegalStateException("update with model() method require a primary key");
-                    }
-                    conditionsArray[i] = new Condition[1];
-                    conditionsArray[i][0] = Where.where(primaryKeyName, Where.Op.IS, tableDesc.getPrimaryKeyValue(model));
-                }
+            if (TextUtils.isEmpty(tableDesc.getPrimaryKeyRealName())) {
+                throw new IllegalStateException("update with model() method require a primary key");
+            }
 
+            for (Object model : models) {
                 if (model instanceof ModelListener) {
                     ((ModelListener) model).onPreUpdate();
                 }
-
-                valuesArray[i] = tableDesc.getContentValues(model);
             }
-            return databaseProvider.bulkUpdate(
-                    tableDesc.getTableRealName(),
-                    valuesArray,
-                    conditionsArray
-            );
+
+            return databaseProvider.bulkUpdate(tableDesc, models);
         } else {
             return databaseProvider.bulkUpdate(
                     getTableDescription(classDef, databaseProvider).getTableRealName(),
@@ -169,7 +209,7 @@ public abstract class Query {
                 throw new IllegalStateException("delete with model() method require a primary key");
             }
 
-            Object[] keys = new String[delete.getModels().length];
+            Object[] keys = new Object[models.length];
             for (int i = 0; i < models.length; i++) {
                 keys[i] = tableDesc.getPrimaryKeyValue(models[i]);
 
@@ -201,11 +241,15 @@ public abstract class Query {
                 new rx.Observable.OnSubscribe<T>() {
                     @Override
                     public void call(rx.Subscriber<? super T> subscriber) {
+                        T result;
                         try {
-                            subscriber.onNext(func.call());
+                            result = func.call();
                         } catch (Exception e) {
                             subscriber.onError(e);
+                            return;
                         }
+                        subscriber.onNext(result);
+                        subscriber.onCompleted();
                     }
                 }
         );
@@ -216,17 +260,324 @@ public abstract class Query {
                 new ObservableOnSubscribe<T>() {
                     @Override
                     public void subscribe(ObservableEmitter<T> emitter) throws Exception {
+                        T result;
                         try {
-                            emitter.onNext(func.call());
+                            result = func.call();
                         } catch (Exception e) {
                             emitter.onError(e);
+                            return;
                         }
+                        emitter.onNext(result);
+                        emitter.onComplete();
                     }
                 }
         );
     }
 
-    private static TableDescription getTableDescription(Class<?> classDef, DatabaseProvider databaseProvider) {
+    /**
+     * Wrap a query in an RxJava Observable re-running it on the read executor each time one of the given tables is
+     * modified by the local provider, see {@link BaseLocalDatabaseProvider.OnTablesChangedListener}. A result equal to
+     * the previous one is not emitted again.
+     *
+     * @param debounceMs   The time in milliseconds without modification waited before re-running the query, 0 to not
+     *                     wait
+     * @param maxLatencyMs The maximum time in milliseconds between the first modification and the re-run of the query
+     */
+    protected static <T> rx.Observable<T> observeRx(DatabaseProvider databaseProvider, final Set<String> tableNames,
+                                                    final long debounceMs, final long maxLatencyMs,
+                                                    final Callable<T> func) {
+        final BaseLocalDatabaseProvider localDatabaseProvider = getLocalDatabaseProvider(databaseProvider);
+
+        rx.Observable<Object> changes = rx.Observable.create(
+                new rx.Observable.OnSubscribe<Object>() {
+                    @Override
+                    public void call(rx.Subscriber<? super Object> subscriber) {
+                        // the tables can be modified concurrently by several threads
+                        final rx.Subscriber<Object> serializedSubscriber = new SerializedSubscriber<>(subscriber);
+                        final BaseLocalDatabaseProvider.OnTablesChangedListener listener =
+                                new BaseLocalDatabaseProvider.OnTablesChangedListener() {
+                                    @Override
+                                    public void onTablesChanged(@NonNull Set<String> changedTableNames) {
+                                        if (!Collections.disjoint(changedTableNames, tableNames)) {
+                                            serializedSubscriber.onNext(TABLES_CHANGED);
+                                        }
+                                    }
+                                };
+                        localDatabaseProvider.addOnTablesChangedListener(listener);
+                        subscriber.add(Subscriptions.create(new Action0() {
+                            @Override
+                            public void call() {
+                                localDatabaseProvider.removeOnTablesChangedListener(listener);
+                            }
+                        }));
+                    }
+                }
+        ).onBackpressureLatest();
+        if (debounceMs > 0) {
+            final rx.Observable<Object> tableChanges = changes;
+            changes = rx.Observable.defer(new Func0<rx.Observable<Object>>() {
+                @Override
+                public rx.Observable<Object> call() {
+                    final rx.Scheduler scheduler = rx.schedulers.Schedulers.computation();
+                    final ChangeDeadline deadline = new ChangeDeadline(debounceMs, maxLatencyMs);
+                    return tableChanges.debounce(new Func1<Object, rx.Observable<Long>>() {
+                        @Override
+                        public rx.Observable<Long> call(Object change) {
+                            return rx.Observable.timer(deadline.getDelay(scheduler.now()), TimeUnit.MILLISECONDS,
+                                    scheduler);
+                        }
+                    }).doOnNext(new Action1<Object>() {
+                        @Override
+                        public void call(Object change) {
+                            deadline.reset();
+                        }
+                    });
+                }
+            }).onBackpressureLatest();
+        }
+
+        // Only the latest change is kept while the query runs, so a burst of changes leads to a single re-run
+        return changes.startWith(TABLES_CHANGED)
+                .onBackpressureLatest()
+                .observeOn(QueryExecutors.getReadScheduler(), 1)
+                .map(new Func1<Object, T>() {
+                    @Override
+                    public T call(Object change) {
+                        try {
+                            return func.call();
+                        } catch (Exception e) {
+                            throw Exceptions.propagate(e);
+                        }
+                    }
+                })
+                .distinctUntilChanged();
+    }
+
+    /**
+     * Wrap a query in an RxJava2 Observable re-running it on the read executor each time one of the given tables is
+     * modified by the local provider, see {@link #observeRx(DatabaseProvider, Set, long, long, Callable)}
+     */
+    protected static <T> Observable<T> observeRx2(DatabaseProvider databaseProvider, final Set<String> tableNames,
+                                                  final long debounceMs, final long maxLatencyMs,
+                                                  final Callable<T> func) {
+        final BaseLocalDatabaseProvider localDatabaseProvider = getLocalDatabaseProvider(databaseProvider);
+
+        Flowable<Object> changes = Flowable.create(
+                new FlowableOnSubscribe<Object>() {
+                    @Override
+                    public void subscribe(FlowableEmitter<Object> emitter) throws Exception {
+                        // the tables can be modified concurrently by several threads
+                        final FlowableEmitter<Object> serializedEmitter = emitter.serialize();
+                        final BaseLocalDatabaseProvider.OnTablesChangedListener listener =
+                                new BaseLocalDatabaseProvider.OnTablesChangedListener() {
+                                    @Override
+                                    public void onTablesChanged(@NonNull Set<String> changedTableNames) {
+                                        if (!Collections.disjoint(changedTableNames, tableNames)) {
+                                            serializedEmitter.onNext(TABLES_CHANGED);
+                                        }
+                                    }
+                                };
+                        localDatabaseProvider.addOnTablesChangedListener(listener);
+                        emitter.setCancellable(new Cancellable() {
+                            @Override
+                            public void cancel() throws Exception {
+                                localDatabaseProvider.removeOnTablesChangedListener(listener);
+                            }
+                        });
+                    }
+                }, BackpressureStrategy.LATEST);
+        if (debounceMs > 0) {
+            final Flowable<Object> tableChanges = changes;
+            changes = Flowable.defer(new Callable<Flowable<Object>>() {
+                @Override
+                public Flowable<Object> call() throws Exception {
+                    final Scheduler scheduler = Schedulers.computation();
+                    final ChangeDeadline deadline = new ChangeDeadline(debounceMs, maxLatencyMs);
+                    return tableChanges.debounce(new Function<Object, Flowable<Long>>() {
+                        @Override
+                        public Flowable<Long> apply(Object change) throws Exception {
+                            long now = scheduler.now(TimeUnit.MILLISECONDS);
+                            return Flowable.timer(deadline.getDelay(now), TimeUnit.MILLISECONDS, scheduler);
+                        }
+                    }).doOnNext(new Consumer<Object>() {
+                        @Override
+                        public void accept(Object change) throws Exception {
+                            deadline.reset();
+                        }
+                    });
+                }
+            }).onBackpressureLatest();
+        }
+
+        // Only the latest change is kept while the query runs, so a burst of changes leads to a single re-run
+        return changes.startWith(TABLES_CHANGED)
+                .onBackpressureLatest()
+                .observeOn(QueryExecutors.getReadScheduler2(), false, 1)
+                .map(new Function<Object, T>() {
+                    @Override
+                    public T apply(Object change) throws Exception {
+                        return func.call();
+                    }
+                })
+                .distinctUntilChanged()
+                .toObservable();
+    }
+
+    /**
+     * @return The real names of the tables read by a query on the given table with the given joins
+     */
+    protected static Set<String> getObservedTableNames(Class<?> classDef, Join[] joins, DatabaseProvider databaseProvider) {
+        Set<String> tableNames = new HashSet<>();
+        tableNames.add(getTableDescription(classDef, databaseProvider).getTableRealName());
+        if (joins != null) {
+            for (Join join : joins) {
+                while (join != null) {
+                    tableNames.add(getTableDescription(join.getTable(), databaseProvider).getTableRealName());
+                    join = join.getJoin();
+                }
+            }
+        }
+        return tableNames;
+    }
+
+    /**
+     * Run a query on the given executor, see {@link QueryExecutors}
+     *
+     * @param callback Called with the outcome of the query, can be null
+     * @return The future result of the query
+     */
+    protected static <T> Future<T> runAsync(Callable<T> func, Executor executor, final QueryCallback<T> callback) {
+        FutureTask<T> task = new FutureTask<T>(func) {
+            @Override
+            protected void done() {
+                if (callback == null || isCancelled()) {
+                    return;
+                }
+
+                T result;
+                try {
+                    result = get();
+                } catch (ExecutionException e) {
+                    callback.onError(e.getCause());
+                    return;
+                } catch (InterruptedException e) {
+                    // cannot happen, the task is done
+                    return;
+                }
+                callback.onResult(result);
+            }
+        };
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Queue a write for the group commit writer of the local provider, see
+     * {@link BaseLocalDatabaseProvider#enqueueWrite(Callable)}
+     */
+    protected static <T> Future<T> enqueueWrite(DatabaseProvider databaseProvider, Callable<T> write) {
+        return enqueueWrite(databaseProvider, write, null);
+    }
+
+    private static <T> Future<T> enqueueWrite(DatabaseProvider databaseProvider, Callable<T> write,
+                                              QueryCallback<T> callback) {
+        if (!(databaseProvider instanceof BaseLocalDatabaseProvider)) {
+            throw new IllegalStateException("queued writes require a local database provider");
+        }
+
+        return ((BaseLocalDatabaseProvider) databaseProvider).enqueueWrite(write, callback);
+    }
+
+    /**
+     * Queue a write for the group commit writer of the local provider on subscription. Nothing waits for the commit:
+     * the subscriber is called on the writer thread once it is done.
+     */
+    protected static <T> rx.Observable<T> enqueueRx(final DatabaseProvider databaseProvider, final Callable<T> write) {
+        return rx.Observable.create(
+                new rx.Observable.OnSubscribe<T>() {
+                    @Override
+                    public void call(final rx.Subscriber<? super T> subscriber) {
+                        enqueueWrite(databaseProvider, write, new QueryCallback<T>() {
+                            @Override
+                            public void onResult(T result) {
+                                if (!subscriber.isUnsubscribed()) {
+                                    subscriber.onNext(result);
+                                    subscriber.onCompleted();
+                                }
+                            }
+
+                            @Override
+                            public void onError(Throwable throwable) {
+                                if (!subscriber.isUnsubscribed()) {
+                                    subscriber.onError(throwable);
+                                }
+                            }
+                        });
+                    }
+                }
+        );
+    }
+
+    /**
+     * Queue a write for the group commit writer of the local provider on subscription, see
+     * {@link #enqueueRx(DatabaseProvider, Callable)}
+     */
+    protected static <T> Observable<T> enqueueRx2(final DatabaseProvider databaseProvider, final Callable<T> write) {
+        return Observable.create(
+                new ObservableOnSubscribe<T>() {
+                    @Override
+                    public void subscribe(final ObservableEmitter<T> emitter) throws Exception {
+                        enqueueWrite(databaseProvider, write, new QueryCallback<T>() {
+                            @Override
+                            public void onResult(T result) {
+                                emitter.onNext(result);
+                                emitter.onComplete();
+                            }
+
+                            @Override
+                            public void onError(Throwable throwable) {
+                                emitter.onError(throwable);
+                            }
+                        });
+                    }
+                }
+        );
+    }
+
+    private static BaseLocalDatabaseProvider getLocalDatabaseProvider(DatabaseProvider databaseProvider) {
+        if (!(databaseProvider instanceof BaseLocalDatabaseProvider)) {
+            throw new IllegalStateException("observed queries require a local database provider");
+        }
+
+        return (BaseLocalDatabaseProvider) databaseProvider;
+    }
+
+    /**
+     * Wait for the result of a future, rethrowing its failure
+     *
+     * @param future The future, can be null
+     * @return The result of the future, or null if there is no future
+     */
+    protected static <T> T waitFor(Future<T> future) {
+        if (future == null) {
+            return null;
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a result", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    protected static TableDescription getTableDescription(Class<?> classDef, DatabaseProvider databaseProvider) {
         return databaseProvider.getResolver().getTableDescription(classDef);
     }
 }
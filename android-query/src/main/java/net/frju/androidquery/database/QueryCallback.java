@@ -0,0 +1,12 @@
+package net.frju.androidquery.database;
+
+/**
+ * Receives the outcome of a query executed by queryAsync(), on the thread of the executor which ran it, see
+ * {@link QueryExecutors}
+ */
+public interface QueryCallback<T> {
+
+    void onResult(T result);
+
+    void onError(Throwable throwable);
+}
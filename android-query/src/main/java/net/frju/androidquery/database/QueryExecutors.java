@@ -0,0 +1,124 @@
+package net.frju.androidquery.database;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executors running the asynchronous queries, like queryAsync() of the builders: a pool of threads for the reads,
+ * which run concurrently on the read connections of a database using the write-ahead logging, and a single thread for the
+ * writes, which SQLite serializes anyway.
+ * <p>
+ * The rx methods run on the subscribing thread, so a transaction can use them for its own queries. They can be moved to
+ * these executors with subscribeOn() and the schedulers below.
+ */
+public final class QueryExecutors {
+    private static final int READ_POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static Executor sReadExecutor;
+    private static Executor sWriteExecutor;
+
+    private QueryExecutors() {
+    }
+
+    /**
+     * @return The executor running the Select, Count and Raw queries
+     */
+    public static synchronized
+    @NonNull
+    Executor getReadExecutor() {
+        if (sReadExecutor == null) {
+            sReadExecutor = createExecutor(READ_POOL_SIZE, "androidquery-read-");
+        }
+        return sReadExecutor;
+    }
+
+    /**
+     * @return The executor running the Insert, Update, Delete and Save queries, and the transactions
+     */
+    public static synchronized
+    @NonNull
+    Executor getWriteExecutor() {
+        if (sWriteExecutor == null) {
+            sWriteExecutor = createExecutor(1, "androidquery-write-");
+        }
+        return sWriteExecutor;
+    }
+
+    /**
+     * @return An RxJava scheduler running on the read executor
+     */
+    public static
+    @NonNull
+    rx.Scheduler getReadScheduler() {
+        return rx.schedulers.Schedulers.from(getReadExecutor());
+    }
+
+    /**
+     * @return An RxJava scheduler running on the write executor
+     */
+    public static
+    @NonNull
+    rx.Scheduler getWriteScheduler() {
+        return rx.schedulers.Schedulers.from(getWriteExecutor());
+    }
+
+    /**
+     * @return An RxJava2 scheduler running on the read executor
+     */
+    public static
+    @NonNull
+    io.reactivex.Scheduler getReadScheduler2() {
+        return io.reactivex.schedulers.Schedulers.from(getReadExecutor());
+    }
+
+    /**
+     * @return An RxJava2 scheduler running on the write executor
+     */
+    public static
+    @NonNull
+    io.reactivex.Scheduler getWriteScheduler2() {
+        return io.reactivex.schedulers.Schedulers.from(getWriteExecutor());
+    }
+
+    /**
+     * Replace the executor of the reads, for instance to share the thread pool of the application
+     *
+     * @param executor The executor, null to restore the default one
+     */
+    public static synchronized void setReadExecutor(Executor executor) {
+        sReadExecutor = executor;
+    }
+
+    /**
+     * Replace the executor of the writes. It should run a single task at a time, so the writes keep their order.
+     *
+     * @param executor The executor, null to restore the default one
+     */
+    public static synchronized void setWriteExecutor(Executor executor) {
+        sWriteExecutor = executor;
+    }
+
+    private static Executor createExecutor(int poolSize, final String threadNamePrefix) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, threadNamePrefix + mCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // idle threads are released, the library should not keep any thread alive while no query is running
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
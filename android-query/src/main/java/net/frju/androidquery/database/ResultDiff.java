@@ -0,0 +1,265 @@
+package net.frju.androidquery.database;
+
+import android.support.annotation.NonNull;
+
+import net.frju.androidquery.operation.function.CursorResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The edit script turning a previous Select result into a new one, rows being matched by primary key and compared by a
+ * hash of their values. Its operations must be applied in their order, each position being relative to the list
+ * modified by the previous operations, like the notifyItem*() methods of a RecyclerView adapter.
+ */
+public final class ResultDiff {
+
+    public enum Type {
+        INSERT,
+        REMOVE,
+        MOVE,
+        CHANGE
+    }
+
+    public static final class Operation {
+        private final Type mType;
+        private final int mPosition;
+        private final int mCount;
+        private final int mToPosition;
+
+        private Operation(Type type, int position, int count) {
+            this(type, position, count, -1);
+        }
+
+        private Operation(Type type, int position, int count, int toPosition) {
+            mType = type;
+            mPosition = position;
+            mCount = count;
+            mToPosition = toPosition;
+        }
+
+        public
+        @NonNull
+        Type getType() {
+            return mType;
+        }
+
+        /**
+         * @return The position of the first row, or the position the row is moved from for a move
+         */
+        public int getPosition() {
+            return mPosition;
+        }
+
+        /**
+         * @return The number of rows, always 1 for a move
+         */
+        public int getCount() {
+            return mCount;
+        }
+
+        /**
+         * @return The position the row is moved to for a move, -1 for the other operations
+         */
+        public int getToPosition() {
+            return mToPosition;
+        }
+
+        @Override
+        public String toString() {
+            return mType == Type.MOVE
+                    ? mType + "(" + mPosition + " -> " + mToPosition + ")"
+                    : mType + "(" + mPosition + ", " + mCount + ")";
+        }
+    }
+
+    /**
+     * The keys and hashes of the rows of a result, read once on the loading thread
+     */
+    public static final class Snapshot {
+        private final String[] mKeys;
+        private final long[] mHashes;
+
+        /**
+         * @param keys   The distinct keys of the rows
+         * @param hashes The hashes of the values of the rows
+         */
+        public Snapshot(@NonNull String[] keys, @NonNull long[] hashes) {
+            mKeys = keys;
+            mHashes = hashes;
+        }
+
+        /**
+         * @return The snapshot of all the rows of the result, whose position is kept
+         */
+        public static
+        @NonNull
+        Snapshot of(@NonNull CursorResult<?> result) {
+            int count = result.getCount();
+            String[] keys = new String[count];
+            long[] hashes = new long[count];
+
+            String primaryKeyName = result.getPrimaryKeyRealName();
+            int keyIndex = primaryKeyName != null ? result.getColumnIndex(primaryKeyName) : -1;
+            // a key can be repeated by a join, or when rows without primary key are identical
+            Map<String, Integer> occurrences = new HashMap<>();
+
+            int position = result.getPosition();
+            result.moveToPosition(-1);
+            for (int i = 0; i < count && result.moveToNext(); i++) {
+                hashes[i] = result.getRowHash();
+                String key = keyIndex != -1 ? result.getString(keyIndex) : Long.toString(hashes[i]);
+                Integer occurrence = occurrences.get(key);
+                occurrences.put(key, occurrence == null ? 1 : occurrence + 1);
+                keys[i] = occurrence == null ? key : key + '#' + occurrence;
+            }
+            result.moveToPosition(position);
+
+            return new Snapshot(keys, hashes);
+        }
+    }
+
+    private final List<Operation> mOperations;
+
+    private ResultDiff(List<Operation> operations) {
+        mOperations = Collections.unmodifiableList(operations);
+    }
+
+    public
+    @NonNull
+    List<Operation> getOperations() {
+        return mOperations;
+    }
+
+    /**
+     * @return Whether both results have the same rows, with the same values, in the same order
+     */
+    public boolean isEmpty() {
+        return mOperations.isEmpty();
+    }
+
+    /**
+     * @return The edit script turning the old rows into the new ones
+     */
+    public static
+    @NonNull
+    ResultDiff compute(@NonNull Snapshot oldSnapshot, @NonNull Snapshot newSnapshot) {
+        List<Operation> operations = new ArrayList<>();
+
+        Map<String, Integer> newPositions = new HashMap<>(newSnapshot.mKeys.length * 2);
+        for (int i = 0; i < newSnapshot.mKeys.length; i++) {
+            newPositions.put(newSnapshot.mKeys[i], i);
+        }
+
+        // Removals first, from the end so the positions of the next ones are not shifted
+        List<String> current = new ArrayList<>(Arrays.asList(oldSnapshot.mKeys));
+        Map<String, Integer> oldPositions = new HashMap<>(oldSnapshot.mKeys.length * 2);
+        for (int i = oldSnapshot.mKeys.length - 1; i >= 0; i--) {
+            if (newPositions.containsKey(oldSnapshot.mKeys[i])) {
+                oldPositions.put(oldSnapshot.mKeys[i], i);
+            } else {
+                current.remove(i);
+                add(operations, Type.REMOVE, i);
+            }
+        }
+
+        // The longest sequence of kept rows already in the new order stays in place, only the other ones are moved
+        int[] keptNewPositions = new int[current.size()];
+        for (int i = 0; i < keptNewPositions.length; i++) {
+            keptNewPositions[i] = newPositions.get(current.get(i));
+        }
+        boolean[] isStable = getLongestIncreasingSubsequence(keptNewPositions, newSnapshot.mKeys.length);
+
+        // Every other kept row is moved right after the kept row preceding it in the new order
+        String previousKept = null;
+        for (String key : newSnapshot.mKeys) {
+            if (!oldPositions.containsKey(key)) {
+                continue;
+            }
+            if (!isStable[newPositions.get(key)]) {
+                int from = current.indexOf(key);
+                current.remove(from);
+                int to = previousKept == null ? 0 : current.indexOf(previousKept) + 1;
+                current.add(to, key);
+                if (from != to) {
+                    operations.add(new Operation(Type.MOVE, from, 1, to));
+                }
+            }
+            previousKept = key;
+        }
+
+        // The kept rows are now in the new order, the new ones only need to be inserted in between
+        for (int i = 0; i < newSnapshot.mKeys.length; i++) {
+            if (!oldPositions.containsKey(newSnapshot.mKeys[i])) {
+                add(operations, Type.INSERT, i);
+            }
+        }
+
+        for (int i = 0; i < newSnapshot.mKeys.length; i++) {
+            Integer oldPosition = oldPositions.get(newSnapshot.mKeys[i]);
+            if (oldPosition != null && oldSnapshot.mHashes[oldPosition] != newSnapshot.mHashes[i]) {
+                add(operations, Type.CHANGE, i);
+            }
+        }
+
+        return new ResultDiff(operations);
+    }
+
+    /**
+     * Add a single row operation, merged with the previous one when they form a range
+     */
+    private static void add(List<Operation> operations, Type type, int position) {
+        if (!operations.isEmpty()) {
+            Operation last = operations.get(operations.size() - 1);
+            if (last.mType == type) {
+                if (type == Type.REMOVE && position == last.mPosition - 1) {
+                    operations.set(operations.size() - 1, new Operation(type, position, last.mCount + 1));
+                    return;
+                } else if (type != Type.REMOVE && position == last.mPosition + last.mCount) {
+                    operations.set(operations.size() - 1, new Operation(type, last.mPosition, last.mCount + 1));
+                    return;
+                }
+            }
+        }
+        operations.add(new Operation(type, position, 1));
+    }
+
+    /**
+     * @param values   Distinct values, all lower than maxValue
+     * @param maxValue The upper bound of the values
+     * @return Whether each value, used as index, belongs to a longest increasing subsequence of the values
+     */
+    private static boolean[] getLongestIncreasingSubsequence(int[] values, int maxValue) {
+        int[] tails = new int[values.length]; // index of the smallest tail of each subsequence length
+        int[] previous = new int[values.length];
+        int length = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[tails[middle]] < values[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] isInSubsequence = new boolean[maxValue];
+        for (int i = length > 0 ? tails[length - 1] : -1; i != -1; i = previous[i]) {
+            isInSubsequence[values[i]] = true;
+        }
+        return isInSubsequence;
+    }
+}
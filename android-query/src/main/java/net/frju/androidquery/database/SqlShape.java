@@ -0,0 +1,151 @@
+package net.frju.androidquery.database;
+
+import net.frju.androidquery.operation.condition.And;
+import net.frju.androidquery.operation.condition.Condition;
+import net.frju.androidquery.operation.condition.In;
+import net.frju.androidquery.operation.condition.On;
+import net.frju.androidquery.operation.condition.Or;
+import net.frju.androidquery.operation.condition.Where;
+import net.frju.androidquery.operation.join.Join;
+import net.frju.androidquery.operation.keyword.Limit;
+import net.frju.androidquery.operation.keyword.OrderBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The structure of a query part (tables, columns, operators, IN arity...) without its bound values.
+ * Two queries with the same shape are rendered to the same SQL, see {@link ClauseHelper}.
+ */
+final class SqlShape {
+    static final String CONDITIONS = "CONDITIONS";
+    private static final String ORDER_BY = "ORDER_BY";
+    private static final String JOIN_QUERY = "JOIN_QUERY";
+    private static final String WHERE = "WHERE";
+    private static final String IN = "IN";
+    private static final String ON = "ON";
+    private static final String AND = "AND";
+    private static final String OR = "OR";
+    private static final String NULL = "NULL";
+    private static final String VALUE = "VALUE";
+
+    private final Object[] mTokens;
+    private final int mHashCode;
+
+    SqlShape(List<Object> tokens) {
+        mTokens = tokens.toArray();
+        mHashCode = Arrays.hashCode(mTokens);
+    }
+
+    static SqlShape ofOrderBy(OrderBy[] orderByArray) {
+        List<Object> tokens = new ArrayList<>();
+        tokens.add(ORDER_BY);
+        addOrderBy(tokens, orderByArray);
+        return new SqlShape(tokens);
+    }
+
+    static SqlShape ofJoinQuery(String[] tableColumns, Join[] joins, String tableName, Condition[] conditions,
+                                OrderBy[] orderBy, Limit limit) {
+        List<Object> tokens = new ArrayList<>();
+        tokens.add(JOIN_QUERY);
+        tokens.add(tableName);
+        tokens.add(tableColumns.length);
+        Collections.addAll(tokens, (Object[]) tableColumns);
+        addJoins(tokens, joins);
+        addConditions(tokens, conditions);
+        addOrderBy(tokens, orderBy);
+        if (limit != null) {
+            tokens.add(limit.getStart());
+            tokens.add(limit.getEnd());
+        } else {
+            tokens.add(NULL);
+        }
+        return new SqlShape(tokens);
+    }
+
+    private static void addConditions(List<Object> tokens, Condition[] conditions) {
+        addCount(tokens, conditions);
+        if (conditions != null) {
+            for (Condition condition : conditions) {
+                addNode(tokens, condition);
+                if (condition instanceof And) {
+                    addConditions(tokens, ((And) condition).getCondition());
+                } else if (condition instanceof Or) {
+                    addConditions(tokens, ((Or) condition).getCondition());
+                }
+            }
+        }
+    }
+
+    static void addCount(List<Object> tokens, Condition[] conditions) {
+        tokens.add(conditions == null ? NULL : conditions.length);
+    }
+
+    /**
+     * Add the tokens of a single condition, without the ones of its children for And and Or
+     */
+    static void addNode(List<Object> tokens, Condition condition) {
+        if (condition instanceof Where) {
+            Where where = (Where) condition;
+            tokens.add(WHERE);
+            tokens.add(where.getColumn());
+            tokens.add(where.getOperator());
+            tokens.add(where.getValueType() == Where.ValueType.OBJECT && where.getValue() == null ? NULL : VALUE);
+        } else if (condition instanceof In) {
+            In in = (In) condition;
+            tokens.add(IN);
+            tokens.add(in.getColumn());
+            tokens.add(in.getValues().length);
+        } else if (condition instanceof On) {
+            On on = (On) condition;
+            tokens.add(ON);
+            tokens.add(on.getColumn1());
+            tokens.add(on.getColumn2());
+        } else if (condition instanceof And) {
+            tokens.add(AND);
+        } else if (condition instanceof Or) {
+            tokens.add(OR);
+        } else {
+            tokens.add(NULL);
+        }
+    }
+
+    private static void addOrderBy(List<Object> tokens, OrderBy[] orderByArray) {
+        if (orderByArray == null) {
+            tokens.add(NULL);
+            return;
+        }
+
+        tokens.add(orderByArray.length);
+        for (OrderBy orderBy : orderByArray) {
+            tokens.add(orderBy.getField());
+            tokens.add(orderBy.getOrder());
+        }
+    }
+
+    private static void addJoins(List<Object> tokens, Join[] joins) {
+        tokens.add(joins.length);
+        for (Join join : joins) {
+            while (join != null) {
+                tokens.add(join.getClass());
+                tokens.add(join.getTable());
+                addConditions(tokens, join.getClauses());
+                join = join.getJoin();
+            }
+            tokens.add(NULL);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof SqlShape && mHashCode == ((SqlShape) o).mHashCode
+                && Arrays.equals(mTokens, ((SqlShape) o).mTokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+}
@@ -0,0 +1,101 @@
+package net.frju.androidquery.database;
+
+import android.support.annotation.NonNull;
+
+import net.frju.androidquery.operation.condition.Condition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The rows of a table modified by an operation of a local provider, see
+ * {@link BaseLocalDatabaseProvider.OnRowsChangedListener}
+ */
+public final class TableChange {
+
+    public enum Type {
+        INSERT,
+        UPDATE,
+        DELETE,
+        /**
+         * Rows either inserted or updated by a Save query, when the provider cannot tell which
+         */
+        SAVE
+    }
+
+    private final String mTableName;
+    private final Type mType;
+    private final Object[] mPrimaryKeys;
+    private final Condition[] mConditions;
+
+    TableChange(@NonNull String tableName, @NonNull Type type, Object[] primaryKeys, Condition[] conditions) {
+        mTableName = tableName;
+        mType = type;
+        mPrimaryKeys = primaryKeys;
+        mConditions = conditions;
+    }
+
+    /**
+     * @return The real name of the modified table
+     */
+    public
+    @NonNull
+    String getTableName() {
+        return mTableName;
+    }
+
+    public
+    @NonNull
+    Type getType() {
+        return mType;
+    }
+
+    /**
+     * @return The primary keys of the modified rows, or null when they are unknown. For a delete, or an update matched
+     * by primary key, these are the targeted keys, some of which may not have matched any row.
+     */
+    public Object[] getPrimaryKeys() {
+        return mPrimaryKeys;
+    }
+
+    /**
+     * @return The conditions of the query which modified the rows when their primary keys are unknown, null if there is
+     * none: then any row of the table can have been modified
+     */
+    public Condition[] getConditions() {
+        return mConditions;
+    }
+
+    /**
+     * Merge the consecutive changes of the same type on the same table whose primary keys are known, keeping the order
+     * of the other ones
+     */
+    static List<TableChange> compact(List<TableChange> changes) {
+        List<TableChange> compactChanges = new ArrayList<>(changes.size());
+        List<Object> primaryKeys = new ArrayList<>();
+
+        int i = 0;
+        while (i < changes.size()) {
+            TableChange change = changes.get(i);
+            int end = i + 1;
+            while (end < changes.size() && change.mPrimaryKeys != null && changes.get(end).mPrimaryKeys != null
+                    && change.mType == changes.get(end).mType && change.mTableName.equals(changes.get(end).mTableName)) {
+                end++;
+            }
+
+            if (end == i + 1) {
+                compactChanges.add(change);
+            } else {
+                primaryKeys.clear();
+                for (int j = i; j < end; j++) {
+                    Collections.addAll(primaryKeys, changes.get(j).mPrimaryKeys);
+                }
+                compactChanges.add(new TableChange(change.mTableName, change.mType, primaryKeys.toArray(), null));
+            }
+            i = end;
+        }
+
+        return compactChanges;
+    }
+}
@@ -17,6 +17,7 @@ package net.frju.androidquery.database;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 import android.support.annotation.NonNull;
 
 /**
@@ -33,10 +34,22 @@ public interface TableDescription {
     String[] getColumnsSqlArray();
 
     String getPrimaryKeyRealName();
+
+    /**
+     * @return A shared array which must not be modified
+     */
     String[] getIndexNames();
+
     String getCreateIndexQuery();
+
+    /**
+     * @return A shared array which must not be modified
+     */
     String[] getColumnNames();
 
+    /**
+     * @return A shared array which must not be modified
+     */
     String[] getColumnNamesWithTablePrefix();
 
     void setIdToModel(@NonNull Object model, long id);
@@ -44,11 +57,65 @@ public interface TableDescription {
     @NonNull
     ContentValues getContentValues(@NonNull Object model);
 
+    /**
+     * @return The INSERT statement of the table, with one argument per column of {@link #bindInsert(SQLiteStatement, Object)}
+     */
+    @NonNull
+    String getInsertQuery();
+
+    /**
+     * Bind the values of the model to a statement compiled from {@link #getInsertQuery()}
+     *
+     * @param statement The compiled insert statement
+     * @param model     The model to insert
+     */
+    void bindInsert(@NonNull SQLiteStatement statement, @NonNull Object model);
+
+    /**
+     * @return The INSERT statement of the table updating the existing row on a primary key conflict, bound with
+     * {@link #bindInsert(SQLiteStatement, Object)}. It is null when the table has no primary key or an autoincrement one,
+     * and requires SQLite 3.24.
+     */
+    String getUpsertQuery();
+
+    /**
+     * @return The UPDATE statement of a row by its primary key, with one argument per column of
+     * {@link #bindUpdateByPrimaryKey(SQLiteStatement, Object)}, null when the table has no primary key
+     */
+    String getUpdateByPrimaryKeyQuery();
+
+    /**
+     * Bind the values of the model, then its primary key, to a statement compiled from {@link #getUpdateByPrimaryKeyQuery()}
+     *
+     * @param statement The compiled update statement
+     * @param model     The model to update
+     */
+    void bindUpdateByPrimaryKey(@NonNull SQLiteStatement statement, @NonNull Object model);
+
     Object getPrimaryKeyValue(@NonNull Object model);
 
     boolean isPrimaryKeyAutoIncrement();
 
+    /**
+     * Resolve once per cursor the position of every column read by {@link #getSingleResult(Cursor, int[])}
+     *
+     * @param cursor The cursor which will be read
+     * @return The column indexes, -1 for the columns not present in the cursor
+     */
+    int[] getColumnIndexes(Cursor cursor);
+
     <T> T getSingleResult(Cursor cursor);
 
+    <T> T getSingleResult(Cursor cursor, int[] columnIndexes);
+
+    /**
+     * Read the current cursor row into an existing model, the fields of the columns absent from the cursor are left untouched
+     *
+     * @param cursor        The cursor, positioned on the row to read
+     * @param columnIndexes The column indexes returned by {@link #getColumnIndexes(Cursor)}
+     * @param model         The model to fill
+     */
+    void fillModel(@NonNull Cursor cursor, @NonNull int[] columnIndexes, @NonNull Object model);
+
     <T> T[] getArrayResult(Cursor cursor);
 }
\ No newline at end of file
@@ -25,6 +25,22 @@ public class Condition {
         return new Where(column, operator, value);
     }
 
+    public static Where where(String column, Where.Op operator, long value) {
+        return new Where(column, operator, value);
+    }
+
+    public static Where where(String column, Where.Op operator, double value) {
+        return new Where(column, operator, value);
+    }
+
+    public static Where where(String column, Where.Op operator, boolean value) {
+        return new Where(column, operator, value);
+    }
+
+    public static Where where(String column, Where.Op operator, char value) {
+        return new Where(column, operator, value);
+    }
+
     public static And and(Condition... condition) {
         return new And(condition);
     }
@@ -22,6 +22,17 @@ public class Where extends Condition {
     private final String mColumn;
     private final Op mOperator;
     private final Object mValue;
+    private final long mNumericValue;
+    private final ValueType mValueType;
+
+    /**
+     * How the value is stored, the numeric ones avoiding any boxing
+     */
+    public enum ValueType {
+        OBJECT,
+        LONG,
+        DOUBLE
+    }
 
     public enum Op {
         IS("IS"),
@@ -52,8 +63,36 @@ public class Where extends Condition {
         return mOperator;
     }
 
+    /**
+     * @return The value, boxed if it has been given as a primitive
+     */
     public Object getValue() {
-        return mValue;
+        switch (mValueType) {
+            case LONG:
+                return mNumericValue;
+            case DOUBLE:
+                return Double.longBitsToDouble(mNumericValue);
+            default:
+                return mValue;
+        }
+    }
+
+    public ValueType getValueType() {
+        return mValueType;
+    }
+
+    /**
+     * @return The value if its type is {@link ValueType#LONG}
+     */
+    public long getLongValue() {
+        return mNumericValue;
+    }
+
+    /**
+     * @return The value if its type is {@link ValueType#DOUBLE}
+     */
+    public double getDoubleValue() {
+        return Double.longBitsToDouble(mNumericValue);
     }
 
     /**
@@ -67,5 +106,59 @@ public class Where extends Condition {
         mColumn = column;
         mOperator = operator;
         mValue = value;
+        mNumericValue = 0;
+        mValueType = ValueType.OBJECT;
+    }
+
+    /**
+     * Specifies a SQLite WHERE clause on an integer value, without boxing it
+     *
+     * @param column   The column to perform the clause on
+     * @param operator The type of operator that will evaluate the value
+     * @param value    The value being evaluated
+     */
+    public Where(String column, Op operator, long value) {
+        mColumn = column;
+        mOperator = operator;
+        mValue = null;
+        mNumericValue = value;
+        mValueType = ValueType.LONG;
+    }
+
+    /**
+     * Specifies a SQLite WHERE clause on a real value, without boxing it
+     *
+     * @param column   The column to perform the clause on
+     * @param operator The type of operator that will evaluate the value
+     * @param value    The value being evaluated
+     */
+    public Where(String column, Op operator, double value) {
+        mColumn = column;
+        mOperator = operator;
+        mValue = null;
+        mNumericValue = Double.doubleToRawLongBits(value);
+        mValueType = ValueType.DOUBLE;
+    }
+
+    /**
+     * Specifies a SQLite WHERE clause on a boolean value, stored as 1 or 0 like the boolean columns
+     *
+     * @param column   The column to perform the clause on
+     * @param operator The type of operator that will evaluate the value
+     * @param value    The value being evaluated
+     */
+    public Where(String column, Op operator, boolean value) {
+        this(column, operator, value ? 1L : 0L);
+    }
+
+    /**
+     * Specifies a SQLite WHERE clause on a character, compared as a one character string and not as its code
+     *
+     * @param column   The column to perform the clause on
+     * @param operator The type of operator that will evaluate the value
+     * @param value    The value being evaluated
+     */
+    public Where(String column, Op operator, char value) {
+        this(column, operator, (Object) String.valueOf(value));
     }
 }
\ No newline at end of file
@@ -19,9 +19,12 @@ import android.support.annotation.NonNull;
 
 import net.frju.androidquery.database.DatabaseProvider;
 import net.frju.androidquery.database.Query;
+import net.frju.androidquery.database.QueryCallback;
+import net.frju.androidquery.database.QueryExecutors;
 import net.frju.androidquery.operation.condition.Condition;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import io.reactivex.Observable;
 
@@ -80,6 +83,34 @@ public class Count extends Query {
             );
         }
 
+        /**
+         * Executes a Count query on the read executor, see QueryExecutors
+         *
+         * @return The future row count returned by the query
+         */
+        public
+        @NonNull
+        Future<Long> queryAsync() {
+            return queryAsync(null);
+        }
+
+        /**
+         * Executes a Count query on the read executor, see QueryExecutors
+         *
+         * @param callback Called with the row count returned by the query or its failure, can be null
+         * @return The future row count returned by the query
+         */
+        public
+        @NonNull
+        Future<Long> queryAsync(QueryCallback<Long> callback) {
+            return runAsync(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return query();
+                }
+            }, QueryExecutors.getReadExecutor(), callback);
+        }
+
         /**
          * Execute a Count query
          * @return An RxJava Observable
@@ -110,5 +141,94 @@ public class Count extends Query {
                 }
             });
         }
+
+        /**
+         * Observes a Count query: it is run once subscribed, then again each time the table is modified by the local
+         * provider. A count equal to the previous one is not emitted again.
+         *
+         * @return An RxJava Observable emitting every new count
+         */
+        public
+        @NonNull
+        rx.Observable<Long> observe() {
+            return observe(DEFAULT_OBSERVE_DEBOUNCE_MS);
+        }
+
+        /**
+         * Observes a Count query, see {@link #observe()}
+         *
+         * @param debounceMs The time in milliseconds without modification waited before re-running the query, but never
+         *                   more than 500ms after the first modification
+         * @return An RxJava Observable emitting every new count
+         */
+        public
+        @NonNull
+        rx.Observable<Long> observe(long debounceMs) {
+            return observe(debounceMs, Math.max(debounceMs, DEFAULT_OBSERVE_MAX_LATENCY_MS));
+        }
+
+        /**
+         * Observes a Count query, see {@link #observe()}
+         *
+         * @param debounceMs   The time in milliseconds without modification waited before re-running the query
+         * @param maxLatencyMs The maximum time in milliseconds between the first modification and the re-run of the query,
+         *                     so it is still re-run regularly during continuous modifications
+         * @return An RxJava Observable emitting every new count
+         */
+        public
+        @NonNull
+        rx.Observable<Long> observe(long debounceMs, long maxLatencyMs) {
+            return observeRx(mDatabaseProvider, getObservedTableNames(mClassDef, null, mDatabaseProvider), debounceMs,
+                    maxLatencyMs, new Callable<Long>() {
+                        @Override
+                        public Long call() throws Exception {
+                            return query();
+                        }
+                    });
+        }
+
+        /**
+         * Observes a Count query, see {@link #observe()}
+         *
+         * @return An RxJava2 Observable emitting every new count
+         */
+        public
+        @NonNull
+        Observable<Long> observe2() {
+            return observe2(DEFAULT_OBSERVE_DEBOUNCE_MS);
+        }
+
+        /**
+         * Observes a Count query, see {@link #observe()}
+         *
+         * @param debounceMs The time in milliseconds without modification waited before re-running the query, but never
+         *                   more than 500ms after the first modification
+         * @return An RxJava2 Observable emitting every new count
+         */
+        public
+        @NonNull
+        Observable<Long> observe2(long debounceMs) {
+            return observe2(debounceMs, Math.max(debounceMs, DEFAULT_OBSERVE_MAX_LATENCY_MS));
+        }
+
+        /**
+         * Observes a Count query, see {@link #observe()}
+         *
+         * @param debounceMs   The time in milliseconds without modification waited before re-running the query
+         * @param maxLatencyMs The maximum time in milliseconds between the first modification and the re-run of the query,
+         *                     so it is still re-run regularly during continuous modifications
+         * @return An RxJava2 Observable emitting every new count
+         */
+        public
+        @NonNull
+        Observable<Long> observe2(long debounceMs, long maxLatencyMs) {
+            return observeRx2(mDatabaseProvider, getObservedTableNames(mClassDef, null, mDatabaseProvider), debounceMs,
+                    maxLatencyMs, new Callable<Long>() {
+                        @Override
+                        public Long call() throws Exception {
+                            return query();
+                        }
+                    });
+        }
     }
 }
\ No newline at end of file
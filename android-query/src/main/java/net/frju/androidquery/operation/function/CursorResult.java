@@ -8,9 +8,9 @@ import net.frju.androidquery.database.Resolver;
 import net.frju.androidquery.database.TableDescription;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class CursorResult<T> extends CursorWrapper implements Iterable<T> {
 
@@ -30,7 +30,51 @@ public class CursorResult<T> extends CursorWrapper implements Iterable<T> {
         }
     }
 
+    /**
+     * Only move forward with moveToNext(), without looking at the cursor count nor position
+     */
+    public class ForwardIterator implements Iterator<T> {
+
+        private final T mReusedModel;
+        private boolean mIsMoved;
+        private boolean mHasNext;
+
+        ForwardIterator(T reusedModel) {
+            mReusedModel = reusedModel;
+        }
+
+        public boolean hasNext() {
+            if (!mIsMoved) {
+                mHasNext = getWrappedCursor() != null && moveToNext();
+                mIsMoved = true;
+            }
+            return mHasNext;
+        }
+
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            mIsMoved = false;
+
+            if (mReusedModel != null) {
+                mQuery.fillModel(CursorResult.this, getColumnIndexes(), mReusedModel);
+                return mReusedModel;
+            }
+            return get();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Cannot remove item from CursorResult");
+        }
+    }
+
+    // FNV-1a parameters
+    private static final long HASH_OFFSET = 0xcbf29ce484222325L;
+    private static final long HASH_PRIME = 0x100000001b3L;
+
     private final TableDescription mQuery;
+    private int[] mColumnIndexes;
 
     public CursorResult(@NonNull Class<T> type, @NonNull Resolver resolver, Cursor cursor) {
         super(cursor);
@@ -38,12 +82,12 @@ public class CursorResult<T> extends CursorWrapper implements Iterable<T> {
     }
 
     public T get() {
-        return mQuery.getSingleResult(this);
+        return mQuery.getSingleResult(this, getColumnIndexes());
     }
 
     public T get(int position) {
         moveToPosition(position);
-        return mQuery.getSingleResult(this);
+        return mQuery.getSingleResult(this, getColumnIndexes());
     }
 
     public T[] toArray() {
@@ -52,12 +96,100 @@ public class CursorResult<T> extends CursorWrapper implements Iterable<T> {
 
     public List<T> toList() {
         if (getWrappedCursor() != null) {
-            return new ArrayList<>(Arrays.asList(toArray())); // need to copy the array otherwise it's not modifiable
+            // Filled directly, going through toArray() would need a copy to be modifiable
+            List<T> result = new ArrayList<>(getCount());
+            try {
+                moveToPosition(-1);
+                for (T model : forwardOnly()) {
+                    result.add(model);
+                }
+            } finally {
+                close();
+            }
+            return result;
         }
 
         return null;
     }
 
+    /**
+     * Iterate over the remaining rows by only moving forward, which is cheaper than the default iterator for a single pass
+     *
+     * @return An Iterable which can be used only once
+     */
+    public
+    @NonNull
+    Iterable<T> forwardOnly() {
+        return forwardOnly(null);
+    }
+
+    /**
+     * Iterate over the remaining rows by only moving forward, every row being read into the same model instance.
+     * This keeps the memory usage constant whatever the number of rows, but the returned model must not be kept
+     * between iterations. Fields of the columns absent from the cursor are never reset.
+     *
+     * @param reusedModel The model filled for every row, or null to get a new model per row
+     * @return An Iterable which can be used only once
+     */
+    public
+    @NonNull
+    Iterable<T> forwardOnly(final T reusedModel) {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new ForwardIterator(reusedModel);
+            }
+        };
+    }
+
+    /**
+     * @return The real name of the primary key column of the table, null if it has none
+     */
+    public String getPrimaryKeyRealName() {
+        String primaryKeyName = mQuery.getPrimaryKeyRealName();
+        return primaryKeyName != null && primaryKeyName.length() > 0 ? primaryKeyName : null;
+    }
+
+    /**
+     * Hash all the values of the current row, to cheaply detect that a row has been modified between two queries
+     *
+     * @return A 64-bit hash of the current row
+     */
+    public long getRowHash() {
+        long hash = HASH_OFFSET;
+        for (int i = 0; i < getColumnCount(); i++) {
+            int type = getType(i);
+            hash = (hash ^ type) * HASH_PRIME;
+            switch (type) {
+                case FIELD_TYPE_INTEGER:
+                    hash = (hash ^ getLong(i)) * HASH_PRIME;
+                    break;
+                case FIELD_TYPE_FLOAT:
+                    hash = (hash ^ Double.doubleToLongBits(getDouble(i))) * HASH_PRIME;
+                    break;
+                case FIELD_TYPE_STRING:
+                    String string = getString(i);
+                    for (int j = 0; j < string.length(); j++) {
+                        hash = (hash ^ string.charAt(j)) * HASH_PRIME;
+                    }
+                    break;
+                case FIELD_TYPE_BLOB:
+                    for (byte b : getBlob(i)) {
+                        hash = (hash ^ b) * HASH_PRIME;
+                    }
+                    break;
+            }
+        }
+        return hash;
+    }
+
+    private int[] getColumnIndexes() {
+        if (mColumnIndexes == null) {
+            mColumnIndexes = mQuery.getColumnIndexes(this);
+        }
+        return mColumnIndexes;
+    }
+
     @Override
     public int getCount() {
         if (getWrappedCursor() != null) {
@@ -19,10 +19,13 @@ import android.support.annotation.NonNull;
 
 import net.frju.androidquery.database.DatabaseProvider;
 import net.frju.androidquery.database.Query;
+import net.frju.androidquery.database.QueryCallback;
+import net.frju.androidquery.database.QueryExecutors;
 import net.frju.androidquery.operation.condition.Condition;
 
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import io.reactivex.Observable;
 
@@ -126,6 +129,34 @@ public class Delete extends Query {
             }
         }
 
+        /**
+         * Executes a Delete query on the write executor, see QueryExecutors
+         *
+         * @return The future rows affected by the Delete query
+         */
+        public
+        @NonNull
+        Future<Integer> queryAsync() {
+            return queryAsync(null);
+        }
+
+        /**
+         * Executes a Delete query on the write executor, see QueryExecutors
+         *
+         * @param callback Called with the rows affected by the Delete query or its failure, can be null
+         * @return The future rows affected by the Delete query
+         */
+        public
+        @NonNull
+        Future<Integer> queryAsync(QueryCallback<Integer> callback) {
+            return runAsync(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return query();
+                }
+            }, QueryExecutors.getWriteExecutor(), callback);
+        }
+
         /**
          * Executes a Delete query
          * @return An RxJava Observable
@@ -156,5 +187,54 @@ public class Delete extends Query {
                 }
             });
         }
+
+        /**
+         * Queues a Delete query for the group commit writer of the local provider, which commits it with other
+         * queued writes in a single transaction, see BaseLocalDatabaseProvider#enqueueWrite
+         *
+         * @return The rows affected by the Delete query, available once committed
+         */
+        public
+        @NonNull
+        Future<Integer> enqueue() {
+            return enqueueWrite(mDatabaseProvider, new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return query();
+                }
+            });
+        }
+
+        /**
+         * Queues a Delete query for the group commit writer of the local provider
+         *
+         * @return An RxJava Observable, emitting once the query is committed
+         */
+        public
+        @NonNull
+        rx.Observable<Integer> enqueueRx() {
+            return Query.enqueueRx(mDatabaseProvider, new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return query();
+                }
+            });
+        }
+
+        /**
+         * Queues a Delete query for the group commit writer of the local provider
+         *
+         * @return An RxJava2 Observable, emitting once the query is committed
+         */
+        public
+        @NonNull
+        Observable<Integer> enqueueRx2() {
+            return Query.enqueueRx2(mDatabaseProvider, new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return query();
+                }
+            });
+        }
     }
-}
\ No newline at end of file
+}
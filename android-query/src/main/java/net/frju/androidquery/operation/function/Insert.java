@@ -19,9 +19,12 @@ import android.support.annotation.NonNull;
 
 import net.frju.androidquery.database.DatabaseProvider;
 import net.frju.androidquery.database.Query;
+import net.frju.androidquery.database.QueryCallback;
+import net.frju.androidquery.database.QueryExecutors;
 
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import io.reactivex.Observable;
 
@@ -75,6 +78,34 @@ public class Insert extends Query {
             );
         }
 
+        /**
+         * Executes an Insert query on the write executor, see QueryExecutors
+         *
+         * @return The future rows affected by the Insert query
+         */
+        public
+        @NonNull
+        Future<Integer> queryAsync() {
+            return queryAsync(null);
+        }
+
+        /**
+         * Executes an Insert query on the write executor, see QueryExecutors
+         *
+         * @param callback Called with the rows affected by the Insert query or its failure, can be null
+         * @return The future rows affected by the Insert query
+         */
+        public
+        @NonNull
+        Future<Integer> queryAsync(QueryCallback<Integer> callback) {
+            return runAsync(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return query();
+                }
+            }, QueryExecutors.getWriteExecutor(), callback);
+        }
+
         /**
          * Executes an Insert query
          * @return An RxJava Observable
@@ -105,5 +136,54 @@ public class Insert extends Query {
                 }
             });
         }
+
+        /**
+         * Queues an Insert query for the group commit writer of the local provider, which commits it with other
+         * queued writes in a single transaction, see BaseLocalDatabaseProvider#enqueueWrite
+         *
+         * @return The rows affected by the Insert query, available once committed
+         */
+        public
+        @NonNull
+        Future<Integer> enqueue() {
+            return enqueueWrite(mDatabaseProvider, new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return query();
+                }
+            });
+        }
+
+        /**
+         * Queues an Insert query for the group commit writer of the local provider
+         *
+         * @return An RxJava Observable, emitting once the query is committed
+         */
+        public
+        @NonNull
+        rx.Observable<Integer> enqueueRx() {
+            return Query.enqueueRx(mDatabaseProvider, new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return query();
+                }
+            });
+        }
+
+        /**
+         * Queues an Insert query for the group commit writer of the local provider
+         *
+         * @return An RxJava2 Observable, emitting once the query is committed
+         */
+        public
+        @NonNull
+        Observable<Integer> enqueueRx2() {
+            return Query.enqueueRx2(mDatabaseProvider, new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return query();
+                }
+            });
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package net.frju.androidquery.operation.function;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * A page of results returned by {@link Select.Builder#queryPage(int)}
+ */
+public class Page<T> {
+
+    private final List<T> mItems;
+    private final Object[] mNextKey;
+
+    Page(@NonNull List<T> items, Object[] nextKey) {
+        mItems = items;
+        mNextKey = nextKey;
+    }
+
+    public
+    @NonNull
+    List<T> getItems() {
+        return mItems;
+    }
+
+    /**
+     * @return The key to give to {@link Select.Builder#pageAfter(Object...)} to get the next page, null if this page is the last one
+     */
+    public Object[] getNextKey() {
+        return mNextKey;
+    }
+
+    public boolean hasNext() {
+        return mNextKey != null;
+    }
+}
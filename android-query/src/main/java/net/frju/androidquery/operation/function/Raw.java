@@ -5,8 +5,11 @@ import android.support.annotation.NonNull;
 
 import net.frju.androidquery.database.DatabaseProvider;
 import net.frju.androidquery.database.Query;
+import net.frju.androidquery.database.QueryCallback;
+import net.frju.androidquery.database.QueryExecutors;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import io.reactivex.Observable;
 
@@ -34,6 +37,34 @@ public class Raw extends Query {
             return rawQuery(mQuery, mDatabaseProvider);
         }
 
+        /**
+         * Executes a Raw query on the read executor, see QueryExecutors
+         *
+         * @return The future cursor returned by the query
+         */
+        public
+        @NonNull
+        Future<Cursor> queryAsync() {
+            return queryAsync(null);
+        }
+
+        /**
+         * Executes a Raw query on the read executor, see QueryExecutors
+         *
+         * @param callback Called with the cursor returned by the query or its failure, can be null
+         * @return The future cursor returned by the query
+         */
+        public
+        @NonNull
+        Future<Cursor> queryAsync(QueryCallback<Cursor> callback) {
+            return runAsync(new Callable<Cursor>() {
+                @Override
+                public Cursor call() throws Exception {
+                    return query();
+                }
+            }, QueryExecutors.getReadExecutor(), callback);
+        }
+
         /**
          * Executes a Row query
          *
@@ -15,29 +15,91 @@
  */
 package net.frju.androidquery.operation.function;
 
+import android.annotation.TargetApi;
+import android.database.Cursor;
+import android.os.Build;
+import android.os.CancellationSignal;
 import android.support.annotation.NonNull;
+import android.text.TextUtils;
 
 import net.frju.androidquery.database.DatabaseProvider;
 import net.frju.androidquery.database.Query;
+import net.frju.androidquery.database.QueryCallback;
+import net.frju.androidquery.database.QueryExecutors;
+import net.frju.androidquery.database.TableDescription;
 import net.frju.androidquery.operation.condition.Condition;
+import net.frju.androidquery.operation.condition.Where;
 import net.frju.androidquery.operation.join.Join;
 import net.frju.androidquery.operation.keyword.Limit;
 import net.frju.androidquery.operation.keyword.OrderBy;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
 
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.functions.BiConsumer;
+import io.reactivex.functions.Function;
+import rx.functions.Func1;
 
 /**
  * Executes a Select query against the SQLite database
  * @author Samuel Kirton [sam@memtrip.com]
  */
 public class Select extends Query {
+    private static final String ROWID = "rowid";
+    private static final int DEFAULT_FLOWABLE_BATCH_SIZE = 100;
+
+    /**
+     * Receives the models read by Builder#forEachChunk
+     */
+    public interface ChunkConsumer<T> {
+        /**
+         * @param chunk The models of the chunk, which can be kept after this call
+         */
+        void accept(@NonNull List<T> chunk);
+    }
+
+    /**
+     * The models of an observed result, compared with the previous result through the hashes of their rows
+     */
+    private static final class Snapshot<T> {
+        private final List<T> mModels;
+        private final long[] mRowHashes;
+
+        Snapshot(List<T> models, long[] rowHashes) {
+            mModels = models;
+            mRowHashes = rowHashes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Snapshot && Arrays.equals(mRowHashes, ((Snapshot<?>) o).mRowHashes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(mRowHashes);
+        }
+    }
+
+    private final String[] mColumns;
     private final Condition[] mCondition;
     private final Join[] mJoin;
     private final OrderBy[] mOrderBy;
     private final Limit mLimit;
+    private final CancellationSignal mCancellationSignal;
+
+    public String[] getColumns() {
+        return mColumns;
+    }
 
     public Condition[] getClause() {
         return mCondition;
@@ -55,11 +117,22 @@ public class Select extends Query {
         return mLimit;
     }
 
-    private Select(Condition[] condition, Join[] join, OrderBy[] orderBy, Limit limit) {
+    public CancellationSignal getCancellationSignal() {
+        return mCancellationSignal;
+    }
+
+    private Select(String[] columns, Condition[] condition, Join[] join, OrderBy[] orderBy, Limit limit) {
+        this(columns, condition, join, orderBy, limit, null);
+    }
+
+    private Select(String[] columns, Condition[] condition, Join[] join, OrderBy[] orderBy, Limit limit,
+                   CancellationSignal cancellationSignal) {
+        mColumns = columns;
         mCondition = condition;
         mJoin = join;
         mOrderBy = orderBy;
         mLimit = limit;
+        mCancellationSignal = cancellationSignal;
     }
 
     public static
@@ -69,10 +142,13 @@ public class Select extends Query {
     }
 
     public static class Builder<T> {
+        private String[] mColumns;
         private Condition[] mCondition;
         private Join[] mJoin;
         private OrderBy[] mOrderBy;
         private Limit mLimit;
+        private CancellationSignal mCancellationSignal;
+        private Object[] mPageAfter;
         private final Class<T> mClassDef;
         private final DatabaseProvider mDatabaseProvider;
 
@@ -81,6 +157,19 @@ public class Select extends Query {
             mDatabaseProvider = databaseProvider;
         }
 
+        /**
+         * Only read the specified columns, the other fields of the returned models keeping their default value.
+         * When joining, this only restricts the columns of the selected table.
+         * @param columns The real names of the columns to read
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        public
+        @NonNull
+        Builder<T> columns(String... columns) {
+            mColumns = columns;
+            return this;
+        }
+
         /**
          * Specify a Where condition for the Select query
          * @param condition Where condition
@@ -154,6 +243,294 @@ public class Select extends Query {
             return this;
         }
 
+        /**
+         * Allow the Select query to be cancelled while it runs, or while its cursor window is filled, in which case
+         * android.os.OperationCanceledException is thrown. Ignored by the providers not supporting it.
+         * @param cancellationSignal The signal cancelling the query, null to not be cancellable
+         * @return Call Builder#query or the rx methods to run the query
+         */
+        @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+        public
+        @NonNull
+        Builder<T> cancellationSignal(CancellationSignal cancellationSignal) {
+            mCancellationSignal = cancellationSignal;
+            return this;
+        }
+
+        /**
+         * Only select the rows coming after the given key, following the Order By clause (keyset pagination).
+         * Contrary to an offset, the cost of a page does not grow with its position.
+         * @param key The values of the Order By columns for the last row of the previous page, see Page#getNextKey()
+         * @return Call Builder#queryPage to run the query
+         */
+        public
+        @NonNull
+        Builder<T> pageAfter(Object... key) {
+            mPageAfter = key;
+            return this;
+        }
+
+        /**
+         * Executes a Select query returning one page of results, the following one being retrieved with pageAfter().
+         * An Order By clause is required, the last column being unique (like the primary key) to not skip rows sharing
+         * the same values. Its columns are read even if they are not part of columns().
+         * @param pageSize The maximum number of rows of the page, positive
+         * @return The page of results
+         */
+        public
+        @NonNull
+        Page<T> queryPage(int pageSize) {
+            return queryPage(mColumns, mOrderBy, mPageAfter, pageSize);
+        }
+
+        /**
+         * Executes a Select query by chunks, each one being released before the next one is read, so only a bounded
+         * number of models are in memory whatever the size of the table. Chunks follow the Order By clause if any,
+         * then the primary key (or the rowid when the table has none).
+         * @param chunkSize The maximum number of models per chunk, positive
+         * @param consumer  Called with every chunk, on the calling thread
+         */
+        public void forEachChunk(int chunkSize, @NonNull ChunkConsumer<T> consumer) {
+            forEachChunk(chunkSize, consumer, null);
+        }
+
+        /**
+         * Executes a Select query by chunks, each one being consumed on the given executor while the next one is read.
+         * At most two chunks are in memory at the same time.
+         * @param chunkSize The maximum number of models per chunk, positive
+         * @param consumer  Called with every chunk, on the executor, one chunk at a time
+         * @param executor  The executor running the consumer, or null to run it on the calling thread
+         */
+        public void forEachChunk(int chunkSize, @NonNull final ChunkConsumer<T> consumer, Executor executor) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize must be positive");
+            }
+            if (mLimit != null) {
+                throw new IllegalStateException("forEachChunk() cannot be used with a Limit clause");
+            }
+
+            TableDescription tableDescription = getTableDescription(mClassDef, mDatabaseProvider);
+            String[] columns = getChunkColumns(tableDescription);
+            OrderBy[] orderBy = getChunkOrderBy(tableDescription);
+
+            FutureTask<Void> pendingTask = null;
+            Object[] pageAfter = null;
+            do {
+                final Page<T> page = queryPage(columns, orderBy, pageAfter, chunkSize);
+                pageAfter = page.getNextKey();
+
+                if (executor == null) {
+                    if (!page.getItems().isEmpty()) {
+                        consumer.accept(page.getItems());
+                    }
+                } else {
+                    waitFor(pendingTask);
+                    pendingTask = null;
+
+                    if (!page.getItems().isEmpty()) {
+                        pendingTask = new FutureTask<>(new Callable<Void>() {
+                            @Override
+                            public Void call() throws Exception {
+                                consumer.accept(page.getItems());
+                                return null;
+                            }
+                        });
+                        executor.execute(pendingTask);
+                    }
+                }
+            } while (pageAfter != null);
+
+            waitFor(pendingTask);
+        }
+
+        private static String getChunkKey(TableDescription tableDescription) {
+            String key = tableDescription.getPrimaryKeyRealName();
+            return TextUtils.isEmpty(key) ? ROWID : key;
+        }
+
+        /**
+         * @return The columns to read for the chunks, the chunk key included
+         */
+        private String[] getChunkColumns(TableDescription tableDescription) {
+            String[] columns = mColumns;
+            String key = getChunkKey(tableDescription);
+            if (columns == null && key.equals(ROWID)) {
+                columns = tableDescription.getColumnNames();
+            }
+            if (columns != null && !Arrays.asList(columns).contains(key)) {
+                columns = Arrays.copyOf(columns, columns.length + 1);
+                columns[columns.length - 1] = key;
+            }
+            return columns;
+        }
+
+        /**
+         * @return The Order By clause of the chunks, the chunk key making it unique, which is needed to not skip any row
+         */
+        private OrderBy[] getChunkOrderBy(TableDescription tableDescription) {
+            String key = getChunkKey(tableDescription);
+            OrderBy keyOrderBy = new OrderBy(mJoin != null
+                    ? tableDescription.getTableRealName() + "." + key
+                    : key, OrderBy.Order.ASC);
+            if (mOrderBy == null) {
+                return new OrderBy[]{keyOrderBy};
+            }
+
+            OrderBy[] orderBy = Arrays.copyOf(mOrderBy, mOrderBy.length + 1);
+            orderBy[mOrderBy.length] = keyOrderBy;
+            return orderBy;
+        }
+
+        private Page<T> queryPage(String[] columns, OrderBy[] orderBy, Object[] pageAfter, int pageSize) {
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("pageSize must be positive");
+            }
+            if (orderBy == null || orderBy.length == 0) {
+                throw new IllegalStateException("queryPage() requires an Order By clause");
+            }
+
+            Condition[] pageCondition = getPageCondition(orderBy, pageAfter);
+            if (pageCondition == null) {
+                return new Page<>(new ArrayList<T>(0), null);
+            }
+
+            // The key of the last row is read from the cursor, whatever the requested columns
+            String tableRealName = getTableDescription(mClassDef, mDatabaseProvider).getTableRealName();
+            String[] keyColumns = new String[orderBy.length];
+            for (int i = 0; i < orderBy.length; i++) {
+                String field = orderBy[i].getField();
+                int dotIndex = field.lastIndexOf('.');
+                if (dotIndex == -1 || field.substring(0, dotIndex).equals(tableRealName)) {
+                    keyColumns[i] = field.substring(dotIndex + 1);
+                    if (columns != null && !Arrays.asList(columns).contains(keyColumns[i])) {
+                        columns = Arrays.copyOf(columns, columns.length + 1);
+                        columns[columns.length - 1] = keyColumns[i];
+                    }
+                } else {
+                    // the columns of the joined tables are always read, under an alias
+                    keyColumns[i] = field.replace('.', '_');
+                }
+            }
+
+            // One more row to know if there is a next page
+            CursorResult<T> result = select(
+                    new Select(columns, pageCondition, mJoin, orderBy, new Limit(0, pageSize + 1)),
+                    mClassDef,
+                    mDatabaseProvider
+            );
+
+            List<T> items = new ArrayList<>(pageSize);
+            Object[] nextKey = null;
+
+            if (result.getWrappedCursor() != null) {
+                try {
+                    while (items.size() < pageSize && result.moveToNext()) {
+                        items.add(result.get());
+                    }
+
+                    if (items.size() == pageSize && result.moveToNext()) {
+                        result.moveToPrevious();
+                        nextKey = getKey(result, keyColumns);
+                    }
+                } finally {
+                    result.close();
+                }
+            }
+
+            return new Page<>(items, nextKey);
+        }
+
+        /**
+         * @return The conditions of the rows coming after the key, or null if no row can come after it
+         */
+        private Condition[] getPageCondition(OrderBy[] orderBy, Object[] pageAfter) {
+            if (pageAfter == null) {
+                return mCondition;
+            }
+
+            if (orderBy.length != pageAfter.length) {
+                throw new IllegalStateException("pageAfter() requires one key value per Order By column");
+            }
+
+            // Expanded form of (a, b) > (?, ?), row values are not supported by old SQLite versions
+            List<Condition> alternatives = new ArrayList<>(orderBy.length);
+            for (int i = 0; i < orderBy.length; i++) {
+                Condition after = getAfterCondition(orderBy[i], pageAfter[i]);
+                if (after == null) {
+                    continue;
+                }
+
+                Condition[] conditions = new Condition[i + 1];
+                for (int j = 0; j < i; j++) {
+                    // IS also matches a null key value
+                    conditions[j] = Condition.where(orderBy[j].getField(), Where.Op.IS, pageAfter[j]);
+                }
+                conditions[i] = after;
+
+                alternatives.add(conditions.length == 1 ? conditions[0] : Condition.and(conditions));
+            }
+
+            if (alternatives.isEmpty()) {
+                return null;
+            }
+
+            Condition pageCondition = alternatives.size() == 1
+                    ? alternatives.get(0)
+                    : Condition.or(alternatives.toArray(new Condition[alternatives.size()]));
+            if (mCondition == null) {
+                return new Condition[]{pageCondition};
+            }
+
+            Condition[] conditions = Arrays.copyOf(mCondition, mCondition.length + 1);
+            conditions[mCondition.length] = pageCondition;
+            return conditions;
+        }
+
+        /**
+         * @return The condition of the rows coming after the value for this column, null if there is none. SQLite sorts
+         * the null values first in ascending order, and last in descending order.
+         */
+        private static Condition getAfterCondition(OrderBy orderBy, Object value) {
+            String field = orderBy.getField();
+            switch (orderBy.getOrder()) {
+                case ASC:
+                    return value == null
+                            ? Condition.where(field, Where.Op.IS_NOT, null)
+                            : Condition.where(field, Where.Op.MORE_THAN, value);
+                case DESC:
+                    return value == null
+                            ? null
+                            : Condition.or(Condition.where(field, Where.Op.LESS_THAN, value), Condition.where(field, Where.Op.IS, null));
+                default:
+                    throw new IllegalStateException("pageAfter() cannot be used with a random order");
+            }
+        }
+
+        private static Object[] getKey(Cursor cursor, String[] keyColumns) {
+            Object[] key = new Object[keyColumns.length];
+            for (int i = 0; i < keyColumns.length; i++) {
+                int index = cursor.getColumnIndexOrThrow(keyColumns[i]);
+                switch (cursor.getType(index)) {
+                    case Cursor.FIELD_TYPE_INTEGER:
+                        key[i] = cursor.getLong(index);
+                        break;
+                    case Cursor.FIELD_TYPE_FLOAT:
+                        key[i] = cursor.getDouble(index);
+                        break;
+                    case Cursor.FIELD_TYPE_NULL:
+                        key[i] = null;
+                        break;
+                    case Cursor.FIELD_TYPE_BLOB:
+                        key[i] = cursor.getBlob(index);
+                        break;
+                    default:
+                        key[i] = cursor.getString(index);
+                        break;
+                }
+            }
+            return key;
+        }
+
         /**
          * Executes a Select query
          * @return The rows returned by the Select query
@@ -162,7 +539,7 @@ public class Select extends Query {
         @NonNull
         CursorResult<T> query() {
             return select(
-                    new Select(mCondition, mJoin, mOrderBy, mLimit),
+                    new Select(mColumns, mCondition, mJoin, mOrderBy, mLimit, mCancellationSignal),
                     mClassDef,
                     mDatabaseProvider
             );
@@ -175,12 +552,40 @@ public class Select extends Query {
         public T querySingle() {
             // For a single query, always put a limit for performance reasons
             return selectSingle(
-                    new Select(mCondition, mJoin, mOrderBy, new Limit(0, 1)),
+                    new Select(mColumns, mCondition, mJoin, mOrderBy, new Limit(0, 1), mCancellationSignal),
                     mClassDef,
                     mDatabaseProvider
             );
         }
 
+        /**
+         * Executes a Select query on the read executor, see QueryExecutors
+         *
+         * @return The future rows returned by the Select query
+         */
+        public
+        @NonNull
+        Future<CursorResult<T>> queryAsync() {
+            return queryAsync(null);
+        }
+
+        /**
+         * Executes a Select query on the read executor, see QueryExecutors
+         *
+         * @param callback Called with the rows returned by the Select query or its failure, can be null
+         * @return The future rows returned by the Select query
+         */
+        public
+        @NonNull
+        Future<CursorResult<T>> queryAsync(QueryCallback<CursorResult<T>> callback) {
+            return runAsync(new Callable<CursorResult<T>>() {
+                @Override
+                public CursorResult<T> call() throws Exception {
+                    return query();
+                }
+            }, QueryExecutors.getReadExecutor(), callback);
+        }
+
         /**
          * Executes a Select query
          * @return An RxJava Observable
@@ -242,5 +647,179 @@ public class Select extends Query {
                 }
             });
         }
+
+        /**
+         * Executes a Select query by chunks, see {@link #flowable(int)}, emitting one model per row
+         *
+         * @return An RxJava2 Flowable emitting one model per row
+         */
+        public
+        @NonNull
+        Flowable<T> flowable() {
+            return flowable(DEFAULT_FLOWABLE_BATCH_SIZE).concatMapIterable(new Function<List<T>, Iterable<T>>() {
+                @Override
+                public Iterable<T> apply(List<T> batch) throws Exception {
+                    return batch;
+                }
+            }, 1);
+        }
+
+        /**
+         * Executes a Select query by chunks, like {@link #forEachChunk(int, ChunkConsumer)}: a short query reads each
+         * batch only once requested downstream, starting after the last row of the previous one, so no cursor is kept
+         * open between batches. The batches follow the Order By clause if any, then the primary key (or the rowid).
+         * It runs on the subscribing thread, see QueryExecutors#getReadScheduler2().
+         *
+         * @param batchSize The maximum number of models per batch
+         * @return An RxJava2 Flowable emitting a list of models per batch
+         */
+        public
+        @NonNull
+        Flowable<List<T>> flowable(final int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize must be positive");
+            }
+            if (mLimit != null) {
+                throw new IllegalStateException("flowable() cannot be used with a Limit clause");
+            }
+
+            final TableDescription tableDescription = getTableDescription(mClassDef, mDatabaseProvider);
+            final String[] columns = getChunkColumns(tableDescription);
+            final OrderBy[] orderBy = getChunkOrderBy(tableDescription);
+
+            return Flowable.generate(new Callable<AtomicReference<Object[]>>() {
+                @Override
+                public AtomicReference<Object[]> call() throws Exception {
+                    return new AtomicReference<>();
+                }
+            }, new BiConsumer<AtomicReference<Object[]>, Emitter<List<T>>>() {
+                @Override
+                public void accept(AtomicReference<Object[]> pageAfter, Emitter<List<T>> emitter) throws Exception {
+                    Page<T> page = queryPage(columns, orderBy, pageAfter.get(), batchSize);
+                    if (!page.getItems().isEmpty()) {
+                        emitter.onNext(page.getItems());
+                    }
+                    if (page.hasNext()) {
+                        pageAfter.set(page.getNextKey());
+                    } else {
+                        emitter.onComplete();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Observes a Select query: it is run once subscribed, then again each time one of its tables, including the
+         * joined ones, is modified by the local provider. A result equal to the previous one is not emitted again.
+         *
+         * @return An RxJava Observable emitting the models of every new result
+         */
+        public
+        @NonNull
+        rx.Observable<List<T>> observe() {
+            return observe(DEFAULT_OBSERVE_DEBOUNCE_MS);
+        }
+
+        /**
+         * Observes a Select query, see {@link #observe()}
+         *
+         * @param debounceMs The time in milliseconds without modification waited before re-running the query, but never
+         *                   more than 500ms after the first modification
+         * @return An RxJava Observable emitting the models of every new result
+         */
+        public
+        @NonNull
+        rx.Observable<List<T>> observe(long debounceMs) {
+            return observe(debounceMs, Math.max(debounceMs, DEFAULT_OBSERVE_MAX_LATENCY_MS));
+        }
+
+        /**
+         * Observes a Select query, see {@link #observe()}
+         *
+         * @param debounceMs   The time in milliseconds without modification waited before re-running the query
+         * @param maxLatencyMs The maximum time in milliseconds between the first modification and the re-run of the query,
+         *                     so it is still re-run regularly during continuous modifications
+         * @return An RxJava Observable emitting the models of every new result
+         */
+        public
+        @NonNull
+        rx.Observable<List<T>> observe(long debounceMs, long maxLatencyMs) {
+            return observeRx(mDatabaseProvider, getObservedTableNames(mClassDef, mJoin, mDatabaseProvider), debounceMs,
+                    maxLatencyMs, new Callable<Snapshot<T>>() {
+                        @Override
+                        public Snapshot<T> call() throws Exception {
+                            return querySnapshot();
+                        }
+                    }).map(new Func1<Snapshot<T>, List<T>>() {
+                @Override
+                public List<T> call(Snapshot<T> snapshot) {
+                    return snapshot.mModels;
+                }
+            });
+        }
+
+        /**
+         * Observes a Select query, see {@link #observe()}
+         *
+         * @return An RxJava2 Observable emitting the models of every new result
+         */
+        public
+        @NonNull
+        Observable<List<T>> observe2() {
+            return observe2(DEFAULT_OBSERVE_DEBOUNCE_MS);
+        }
+
+        /**
+         * Observes a Select query, see {@link #observe()}
+         *
+         * @param debounceMs The time in milliseconds without modification waited before re-running the query, but never
+         *                   more than 500ms after the first modification
+         * @return An RxJava2 Observable emitting the models of every new result
+         */
+        public
+        @NonNull
+        Observable<List<T>> observe2(long debounceMs) {
+            return observe2(debounceMs, Math.max(debounceMs, DEFAULT_OBSERVE_MAX_LATENCY_MS));
+        }
+
+        /**
+         * Observes a Select query, see {@link #observe()}
+         *
+         * @param debounceMs   The time in milliseconds without modification waited before re-running the query
+         * @param maxLatencyMs The maximum time in milliseconds between the first modification and the re-run of the query,
+         *                     so it is still re-run regularly during continuous modifications
+         * @return An RxJava2 Observable emitting the models of every new result
+         */
+        public
+        @NonNull
+        Observable<List<T>> observe2(long debounceMs, long maxLatencyMs) {
+            return observeRx2(mDatabaseProvider, getObservedTableNames(mClassDef, mJoin, mDatabaseProvider), debounceMs,
+                    maxLatencyMs, new Callable<Snapshot<T>>() {
+                        @Override
+                        public Snapshot<T> call() throws Exception {
+                            return querySnapshot();
+                        }
+                    }).map(new Function<Snapshot<T>, List<T>>() {
+                @Override
+                public List<T> apply(Snapshot<T> snapshot) throws Exception {
+                    return snapshot.mModels;
+                }
+            });
+        }
+
+        private Snapshot<T> querySnapshot() {
+            CursorResult<T> result = query();
+            try {
+                List<T> models = new ArrayList<>(result.getCount());
+                long[] rowHashes = new long[result.getCount()];
+                while (result.getWrappedCursor() != null && result.moveToNext()) {
+                    rowHashes[models.size()] = result.getRowHash();
+                    models.add(result.get());
+                }
+                return new Snapshot<>(models, rowHashes);
+            } finally {
+                result.close();
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package net.frju.androidquery.operation.function;
+
+import android.support.annotation.NonNull;
+
+import net.frju.androidquery.database.BaseLocalDatabaseProvider;
+import net.frju.androidquery.database.Query;
+import net.frju.androidquery.database.QueryCallback;
+import net.frju.androidquery.database.QueryExecutors;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import io.reactivex.Observable;
+
+/**
+ * Runs some work, and all the queries it executes on a local database provider, in a single SQLite transaction
+ */
+public class Transaction extends Query {
+
+    private Transaction() {
+    }
+
+    public static
+    @NonNull
+    <T> Builder<T> getBuilder(@NonNull BaseLocalDatabaseProvider databaseProvider, @NonNull Callable<T> work) {
+        return new Builder<>(databaseProvider, work);
+    }
+
+    public static class Builder<T> {
+        private final BaseLocalDatabaseProvider mDatabaseProvider;
+        private final Callable<T> mWork;
+
+        private Builder(@NonNull BaseLocalDatabaseProvider databaseProvider, @NonNull Callable<T> work) {
+            mDatabaseProvider = databaseProvider;
+            mWork = work;
+        }
+
+        /**
+         * Executes the work in a transaction, or in a savepoint when already called from a transaction
+         *
+         * @return The result of the work
+         */
+        public T query() {
+            return mDatabaseProvider.runInTransaction(mWork);
+        }
+
+        /**
+         * Executes the work in its own transaction on the write executor, see QueryExecutors. Waiting for it from a
+         * transaction would block forever.
+         *
+         * @return The future result of the work
+         */
+        public
+        @NonNull
+        Future<T> queryAsync() {
+            return queryAsync(null);
+        }
+
+        /**
+         * Executes the work in a transaction on the write executor, see QueryExecutors
+         *
+         * @param callback Called with the result of the work or its failure, can be null
+         * @return The future result of the work
+         */
+        public
+        @NonNull
+        Future<T> queryAsync(QueryCallback<T> callback) {
+            return runAsync(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    return query();
+                }
+            }, QueryExecutors.getWriteExecutor(), callback);
+        }
+
+        /**
+         * Executes the work on the subscribing thread, in a transaction or in a savepoint when subscribed from a
+         * transaction. Subscribe on QueryExecutors#getWriteScheduler() to run it in background.
+         *
+         * @return An RxJava Observable
+         */
+        public
+        @NonNull
+        rx.Observable<T> rx() {
+            return wrapRx(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    return query();
+                }
+            });
+        }
+
+        /**
+         * Executes the work on the subscribing thread, in a transaction or in a savepoint when subscribed from a
+         * transaction. Subscribe on QueryExecutors#getWriteScheduler2() to run it in background. As RxJava2 does not
+         * accept null items, the work must not return null.
+         *
+         * @return An RxJava2 Observable
+         */
+        public
+        @NonNull
+        Observable<T> rx2() {
+            return wrapRx2(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    return query();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package net.frju.androidquery.utils;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Message;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coalesce the change notifications of each URI on a shared background thread, then fan out a single callback to all the
+ * listeners of that URI. A dispatch waits for the notifications to stop during the debounce time, but never more than
+ * the max latency after the first one, so listeners are still called regularly during a long sync. It also waits for
+ * the minimum interval since the previous dispatch of that URI, so listeners are not called more often than asked.
+ * <p>
+ * The listeners are called on the dispatcher thread and must not block it.
+ */
+public final class ChangeDispatcher {
+    public static final long DEFAULT_DEBOUNCE_MS = 50;
+    public static final long DEFAULT_MAX_LATENCY_MS = 500;
+
+    private static final int MSG_CHANGE = 1;
+    private static final int MSG_DISPATCH = 2;
+
+    public interface Listener {
+        /**
+         * @param uri The changed URI, null for the changes notified without one
+         */
+        void onChange(Uri uri);
+    }
+
+    private static final class Settings {
+        final long mDebounceMs;
+        final long mMaxLatencyMs;
+        final long mMinIntervalMs;
+
+        Settings(long debounceMs, long maxLatencyMs, long minIntervalMs) {
+            mDebounceMs = debounceMs;
+            mMaxLatencyMs = maxLatencyMs;
+            mMinIntervalMs = minIntervalMs;
+        }
+    }
+
+    private static final class Change {
+        final Uri mUri;
+        final Listener mListener;
+        final long mMinIntervalMs;
+
+        Change(Uri uri, Listener listener, long minIntervalMs) {
+            mUri = uri;
+            mListener = listener;
+            mMinIntervalMs = minIntervalMs;
+        }
+    }
+
+    /**
+     * The notifications of a URI not dispatched yet, only accessed on the dispatcher thread
+     */
+    private static final class PendingDispatch {
+        final Uri mUri;
+        final long mFirstChangeTime;
+        final Set<Listener> mListeners = new LinkedHashSet<>();
+        long mMaxLatencyMs = Long.MAX_VALUE;
+        long mMinIntervalMs = 0;
+
+        PendingDispatch(Uri uri, long firstChangeTime) {
+            mUri = uri;
+            mFirstChangeTime = firstChangeTime;
+        }
+    }
+
+    private static final Map<Uri, List<Listener>> sListeners = new HashMap<>();
+    private static final Map<Uri, Settings> sSettings = new HashMap<>();
+    private static Settings sDefaultSettings = new Settings(DEFAULT_DEBOUNCE_MS, DEFAULT_MAX_LATENCY_MS, 0);
+    private static Handler sHandler;
+
+    private static final Map<Uri, PendingDispatch> sPendingDispatches = new HashMap<>();
+    /**
+     * The time of the previous dispatch of a URI plus its minimum interval, kept until then and only accessed on the
+     * dispatcher thread
+     */
+    private static final Map<Uri, Long> sNextDispatchTimes = new HashMap<>();
+
+    private ChangeDispatcher() {
+    }
+
+    /**
+     * Set the debounce time and max latency of the URIs without their own settings
+     */
+    public static synchronized void setDefaultSettings(long debounceMs, long maxLatencyMs) {
+        sDefaultSettings = new Settings(debounceMs, maxLatencyMs, 0);
+    }
+
+    /**
+     * Set the debounce time and max latency of a URI, without minimum interval between its dispatches, see
+     * {@link #setSettings(Uri, long, long, long)}
+     */
+    public static synchronized void setSettings(Uri uri, long debounceMs, long maxLatencyMs) {
+        setSettings(uri, debounceMs, maxLatencyMs, 0);
+    }
+
+    /**
+     * Set the debounce time, max latency and minimum interval of a URI, which take precedence over the minimum interval
+     * given with its notifications
+     *
+     * @param uri           The URI, null for the changes notified without one
+     * @param debounceMs    The time without any new notification after which the listeners are called
+     * @param maxLatencyMs  The maximum time between the first notification and the call of the listeners
+     * @param minIntervalMs The minimum time between two calls of the listeners, which delays the max latency if needed
+     */
+    public static synchronized void setSettings(Uri uri, long debounceMs, long maxLatencyMs, long minIntervalMs) {
+        sSettings.put(uri, new Settings(debounceMs, maxLatencyMs, minIntervalMs));
+    }
+
+    /**
+     * Restore the default settings of a URI
+     */
+    public static synchronized void removeSettings(Uri uri) {
+        sSettings.remove(uri);
+    }
+
+    /**
+     * Call a listener for every coalesced change of a URI, until it is removed
+     */
+    public static synchronized void addListener(Uri uri, @NonNull Listener listener) {
+        List<Listener> listeners = sListeners.get(uri);
+        if (listeners == null) {
+            listeners = new ArrayList<>();
+            sListeners.put(uri, listeners);
+        }
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public static synchronized void removeListener(Uri uri, @NonNull Listener listener) {
+        List<Listener> listeners = sListeners.get(uri);
+        if (listeners != null) {
+            listeners.remove(listener);
+            if (listeners.isEmpty()) {
+                sListeners.remove(uri);
+            }
+        }
+    }
+
+    /**
+     * Notify a change of a URI to its listeners, once coalesced with the other notifications of the same URI
+     */
+    public static void notifyChange(Uri uri) {
+        notifyChange(uri, null, 0);
+    }
+
+    /**
+     * Notify a change of a URI to its listeners and to the given one, once coalesced with the other notifications of the
+     * same URI. The given listener is called only once, even if it notified several changes, and it does not need to be
+     * added nor removed: this is how a ContentObserver, which cannot know when it is unregistered, forwards its changes.
+     *
+     * @param listener      An additional listener for this change only, or null
+     * @param minIntervalMs The minimum time between two calls of the listeners if the URI has no settings of its own,
+     *                      the longest one being kept when the coalesced notifications give different ones
+     */
+    public static void notifyChange(Uri uri, Listener listener, long minIntervalMs) {
+        getHandler().obtainMessage(MSG_CHANGE, new Change(uri, listener, minIntervalMs)).sendToTarget();
+    }
+
+    private static synchronized Handler getHandler() {
+        if (sHandler == null) {
+            HandlerThread thread = new HandlerThread("androidquery-changes");
+            thread.start();
+            sHandler = new Handler(thread.getLooper(), new Handler.Callback() {
+                @Override
+                public boolean handleMessage(Message msg) {
+                    if (msg.what == MSG_CHANGE) {
+                        onChange((Change) msg.obj);
+                    } else {
+                        dispatch((PendingDispatch) msg.obj);
+                    }
+                    return true;
+                }
+            });
+        }
+        return sHandler;
+    }
+
+    private static void onChange(Change change) {
+        long now = SystemClock.uptimeMillis();
+
+        PendingDispatch pendingDispatch = sPendingDispatches.get(change.mUri);
+        if (pendingDispatch == null) {
+            pendingDispatch = new PendingDispatch(change.mUri, now);
+            sPendingDispatches.put(change.mUri, pendingDispatch);
+        }
+        if (change.mListener != null) {
+            pendingDispatch.mListeners.add(change.mListener);
+        }
+
+        Settings settings;
+        synchronized (ChangeDispatcher.class) {
+            settings = sSettings.get(change.mUri);
+            if (settings == null) {
+                settings = new Settings(sDefaultSettings.mDebounceMs, sDefaultSettings.mMaxLatencyMs,
+                        change.mMinIntervalMs);
+            }
+        }
+
+        // Postponed by each new notification, but never beyond the shortest max latency asked since the first one
+        pendingDispatch.mMaxLatencyMs = Math.min(pendingDispatch.mMaxLatencyMs, settings.mMaxLatencyMs);
+        pendingDispatch.mMinIntervalMs = Math.max(pendingDispatch.mMinIntervalMs, settings.mMinIntervalMs);
+        long deadline = Math.min(now + settings.mDebounceMs, pendingDispatch.mFirstChangeTime + pendingDispatch.mMaxLatencyMs);
+
+        // Never before the minimum interval since the previous dispatch either
+        Long nextDispatchTime = sNextDispatchTimes.get(change.mUri);
+        if (nextDispatchTime != null) {
+            deadline = Math.max(deadline, nextDispatchTime);
+        }
+        sHandler.removeMessages(MSG_DISPATCH, pendingDispatch);
+        sHandler.sendMessageAtTime(sHandler.obtainMessage(MSG_DISPATCH, pendingDispatch), deadline);
+    }
+
+    private static void dispatch(PendingDispatch pendingDispatch) {
+        sPendingDispatches.remove(pendingDispatch.mUri);
+
+        long now = SystemClock.uptimeMillis();
+        Iterator<Long> nextDispatchTimes = sNextDispatchTimes.values().iterator();
+        while (nextDispatchTimes.hasNext()) {
+            if (nextDispatchTimes.next() <= now) {
+                nextDispatchTimes.remove();
+            }
+        }
+        if (pendingDispatch.mMinIntervalMs > 0) {
+            sNextDispatchTimes.put(pendingDispatch.mUri, now + pendingDispatch.mMinIntervalMs);
+        }
+
+        Set<Listener> listeners = pendingDispatch.mListeners;
+        synchronized (ChangeDispatcher.class) {
+            List<Listener> addedListeners = sListeners.get(pendingDispatch.mUri);
+            if (addedListeners != null) {
+                listeners.addAll(addedListeners);
+            }
+        }
+
+        for (Listener listener : listeners) {
+            listener.onChange(pendingDispatch.mUri);
+        }
+    }
+}
@@ -1,46 +1,63 @@
 package net.frju.androidquery.utils;
 
 import android.database.ContentObserver;
+import android.net.Uri;
 import android.os.Handler;
-import android.os.SystemClock;
 
+/**
+ * A ContentObserver whose changes are coalesced by the {@link ChangeDispatcher} with the ones of all the other observers
+ * of the same URI: onChangeThrottled() is called on the given handler, at least delayMS after the previous call for
+ * that URI unless it has its own ChangeDispatcher settings. The changes notified without URI, like the ones forwarded
+ * by a cursor, are coalesced under the URI given to the constructor.
+ */
 public abstract class ThrottledContentObserver extends ContentObserver {
 
     private final long mUpdateThrottle;
     private final Handler mHandler;
-    private long mLastUpdate = 0;
+    private final Uri mUri;
+
+    private final ChangeDispatcher.Listener mListener = new ChangeDispatcher.Listener() {
+        @Override
+        public void onChange(Uri uri) {
+            if (mHandler != null) {
+                mHandler.post(mChangeRunnable);
+            } else {
+                onChangeThrottled();
+            }
+        }
+    };
 
-    private boolean mRerun = false;
+    private final Runnable mChangeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            onChangeThrottled();
+        }
+    };
 
     public ThrottledContentObserver(Handler handler, long delayMS) {
+        this(handler, delayMS, null);
+    }
+
+    /**
+     * @param uri The observed URI, used for the changes notified without one, can be null
+     */
+    public ThrottledContentObserver(Handler handler, long delayMS, Uri uri) {
         super(handler);
         mUpdateThrottle = delayMS;
         mHandler = handler;
+        mUri = uri;
     }
 
     @Override
-    public void onChange(final boolean selfChange) {
-        long now = SystemClock.uptimeMillis();
-        if (now - mLastUpdate > mUpdateThrottle) {
-            mLastUpdate = now;
-            onChangeThrottled();
-            mHandler.postDelayed(new Runnable() {
-
-                @Override
-                public void run() {
-                    if (mRerun) {
-                        mRerun = false;
-                        onChange(selfChange);
-                    }
-                }
-            }, mUpdateThrottle + 1);
-        } else {
-            // Ignore but remember we need to rerun it;
-            mRerun = true;
-        }
+    public void onChange(boolean selfChange) {
+        // Only called directly before API 16, without the URI
+        onChange(selfChange, null);
+    }
 
-        super.onChange(selfChange);
+    @Override
+    public void onChange(boolean selfChange, Uri uri) {
+        ChangeDispatcher.notifyChange(uri != null ? uri : mUri, mListener, mUpdateThrottle);
     }
 
     abstract public void onChangeThrottled();
-}
\ No newline at end of file
+}